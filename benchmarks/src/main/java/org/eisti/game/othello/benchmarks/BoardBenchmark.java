@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.benchmarks;
+
+import org.eisti.game.othello.Board;
+import org.eisti.game.othello.Squares;
+import org.eisti.labs.game.Ply;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Board} copy and neighbourhood, one corpus position per invocation
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark {
+
+    @Param({PositionCorpus.MIDGAME, PositionCorpus.ENDGAME})
+    public String phase;
+
+    private Board[] boards;
+    private Ply.Coordinate[] squares;
+    private int cursor;
+    //walks squares independently of boards
+    private int squareCursor;
+
+    @Setup
+    public void setUp() {
+        boards = PositionCorpus.boards(phase);
+        squares = new Ply.Coordinate[Squares.SQUARES_COUNT];
+        for (int square = 0; square < squares.length; square++)
+            squares[square] = Squares.coordinate(square);
+    }
+
+    private int next() {
+        cursor = cursor + 1 == boards.length ? 0 : cursor + 1;
+        return cursor;
+    }
+
+    @Benchmark
+    public Board cloneBoard() {
+        return boards[next()].clone();
+    }
+
+    /**
+     * Every square in turn, edges and corners included
+     */
+    @Benchmark
+    public Ply.Coordinate[] caseAround() {
+        squareCursor = (squareCursor + 1) & (Squares.SQUARES_COUNT - 1);
+        return boards[next()].getCaseAround(squares[squareCursor]);
+    }
+}
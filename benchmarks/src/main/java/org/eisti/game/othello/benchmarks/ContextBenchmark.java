@@ -0,0 +1,96 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.benchmarks;
+
+import org.eisti.game.othello.Board;
+import org.eisti.game.othello.OthelloContext;
+import org.eisti.game.othello.Rules;
+import org.eisti.labs.game.GameState;
+import org.eisti.labs.game.Ply;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OthelloContext} state and history growth, one corpus position per invocation
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ContextBenchmark {
+
+    @Param({PositionCorpus.MIDGAME, PositionCorpus.ENDGAME})
+    public String phase;
+
+    private final Rules rules = new Rules();
+    private OthelloContext[] contexts;
+    private Board[] boards;
+    private Ply[] plies;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        contexts = PositionCorpus.contexts(phase);
+        boards = PositionCorpus.boards(phase);
+        plies = PositionCorpus.plies(contexts);
+    }
+
+    private int next() {
+        cursor = cursor + 1 == contexts.length ? 0 : cursor + 1;
+        return cursor;
+    }
+
+    /**
+     * State of a fresh successor, corpus contexts have theirs memoized after the first call.
+     * Subtract {@link RulesBenchmark#doPly()} to get the state computation alone.
+     */
+    @Benchmark
+    public GameState doPlyThenGetState() {
+        int i = next();
+        return rules.doPly(contexts[i], plies[i]).getState();
+    }
+
+    /**
+     * Successor context with one more board, the board of another position
+     */
+    @Benchmark
+    public OthelloContext branchOff() {
+        int i = next();
+        return contexts[i].branchOff(boards[boards.length - 1 - i]);
+    }
+}
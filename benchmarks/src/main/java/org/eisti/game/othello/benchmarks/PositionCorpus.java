@@ -0,0 +1,150 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.benchmarks;
+
+import org.eisti.game.othello.Board;
+import org.eisti.game.othello.OthelloContext;
+import org.eisti.game.othello.OthelloProperties;
+import org.eisti.game.othello.Perft;
+import org.eisti.game.othello.Rules;
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.labs.game.Clock;
+import org.eisti.labs.game.IBoard;
+import org.eisti.labs.game.IPlayer;
+import org.eisti.labs.game.Ply;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Benchmark positions, taken from engine self-play games with randomized openings.
+ * <p/>
+ * Each line of {@link #RESOURCE} is a phase, {@link #MIDGAME} or {@link #ENDGAME},
+ * followed by a position in {@link Perft#parse(String)} format.
+ * Contexts are built around plain players and clocks, side to move being the active player :
+ * no mock, whose call recording would be measured along with the game.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class PositionCorpus
+        implements OthelloProperties {
+
+    public static final String RESOURCE = "/positions.txt";
+
+    public static final String MIDGAME = "midgame";
+    public static final String ENDGAME = "endgame";
+
+    private PositionCorpus() {
+    }
+
+    /**
+     * @return positions of given phase
+     */
+    public static List<SearchPosition> positions(String phase) {
+        InputStream resource = PositionCorpus.class.getResourceAsStream(RESOURCE);
+        if (resource == null)
+            throw new Error("Missing benchmark positions resource : " + RESOURCE);
+        List<SearchPosition> positions = new ArrayList<SearchPosition>();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(resource, "US-ASCII"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.length() == 0 || line.charAt(0) == '#')
+                        continue;
+                    int separator = line.indexOf(' ');
+                    if (line.substring(0, separator).equals(phase))
+                        positions.add(Perft.parse(line.substring(separator + 1)));
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new Error("Unexpected error while reading benchmark positions", e);
+        }
+        if (positions.isEmpty())
+            throw new IllegalArgumentException("No position for phase : " + phase);
+        return positions;
+    }
+
+    public static Board[] boards(String phase) {
+        List<SearchPosition> positions = positions(phase);
+        Board[] boards = new Board[positions.size()];
+        for (int i = 0; i < boards.length; i++)
+            boards[i] = positions.get(i).toBoard();
+        return boards;
+    }
+
+    public static OthelloContext[] contexts(String phase) {
+        List<SearchPosition> positions = positions(phase);
+        IPlayer black = new CorpusPlayer(BLACK);
+        IPlayer white = new CorpusPlayer(WHITE);
+        OthelloContext[] contexts = new OthelloContext[positions.size()];
+        for (int i = 0; i < contexts.length; i++) {
+            SearchPosition position = positions.get(i);
+            boolean blackToMove = position.getColorToMove() == BLACK;
+            contexts[i] = new OthelloContext(
+                    new Clock(),
+                    new IBoard[]{position.toBoard()},
+                    blackToMove ? new IPlayer[]{black, white} : new IPlayer[]{white, black},
+                    new Clock[]{new Clock(), new Clock()});
+        }
+        return contexts;
+    }
+
+    /**
+     * @return a legal ply of each context's active player, pass if none
+     */
+    public static Ply[] plies(OthelloContext[] contexts) {
+        Ply[] plies = new Ply[contexts.length];
+        for (int i = 0; i < contexts.length; i++) {
+            Set<Ply> moves = Rules.legalMoves(contexts[i]);
+            plies[i] = moves.isEmpty() ? Ply.PASS : moves.iterator().next();
+        }
+        return plies;
+    }
+
+    /**
+     * Player of a color, never asked to play
+     */
+    private static final class CorpusPlayer
+            implements IPlayer {
+
+        private final int identifier;
+
+        private CorpusPlayer(int identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        public int getIdentifier() {
+            return identifier;
+        }
+    }
+}
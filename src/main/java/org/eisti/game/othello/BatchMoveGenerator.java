@@ -0,0 +1,370 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import static org.eisti.game.othello.MoveGenerator.INNER_COLUMNS;
+
+/**
+ * {@link MoveGenerator} over many positions at once.
+ * <p/>
+ * Positions are given either as two parallel arrays, pawns of the side to move and pawns of the side waiting,
+ * or packed as pairs in one array : side to move at <code>2 * i</code>, side waiting at <code>2 * i + 1</code>.
+ * Packed positions are split into parallel arrays {@link #BLOCK} positions at a time.
+ * <p/>
+ * Loops are shaped for the JIT auto-vectorizer : one loop per axis or direction with a constant shift,
+ * no branch and no call in loop bodies, so that each loop runs on SIMD lanes.
+ * A shift amount held in a variable, as in {@link MoveGenerator}, prevents vectorization.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class BatchMoveGenerator {
+
+    /**
+     * Number of packed positions split at once
+     */
+    public static final int BLOCK = 256;
+
+    private BatchMoveGenerator() {
+    }
+
+    /*=========================================================================
+                       LEGAL MOVES
+    =========================================================================*/
+
+    /**
+     * @param players pawns of the side to move of each position
+     * @param rivals  pawns of the side waiting of each position
+     * @param moves   receives legal destinations of each position
+     * @param count   number of positions
+     */
+    public static void legalMoves(long[] players, long[] rivals, long[] moves, int count) {
+        legalMovesKernel(players, rivals, moves, count);
+    }
+
+    /**
+     * @param positions packed positions
+     * @param moves     receives legal destinations of each position
+     * @param count     number of positions
+     */
+    public static void legalMoves(long[] positions, long[] moves, int count) {
+        long[] players = new long[Math.min(BLOCK, count)];
+        long[] rivals = new long[players.length];
+        long[] blockMoves = new long[players.length];
+        for (int from = 0; from < count; from += BLOCK) {
+            int length = Math.min(BLOCK, count - from);
+            unpack(positions, from, length, players, rivals);
+            legalMovesKernel(players, rivals, blockMoves, length);
+            System.arraycopy(blockMoves, 0, moves, from, length);
+        }
+    }
+
+    /**
+     * @param players    pawns of the side to move of each position
+     * @param rivals     pawns of the side waiting of each position
+     * @param mobilities receives number of legal destinations of each position
+     * @param count      number of positions
+     */
+    public static void mobility(long[] players, long[] rivals, int[] mobilities, int count) {
+        long[] moves = new long[count];
+        legalMovesKernel(players, rivals, moves, count);
+        for (int i = 0; i < count; i++)
+            mobilities[i] = Long.bitCount(moves[i]);
+    }
+
+    /**
+     * @param positions  packed positions
+     * @param mobilities receives number of legal destinations of each position
+     * @param count      number of positions
+     */
+    public static void mobility(long[] positions, int[] mobilities, int count) {
+        long[] players = new long[Math.min(BLOCK, count)];
+        long[] rivals = new long[players.length];
+        long[] moves = new long[players.length];
+        for (int from = 0; from < count; from += BLOCK) {
+            int length = Math.min(BLOCK, count - from);
+            unpack(positions, from, length, players, rivals);
+            legalMovesKernel(players, rivals, moves, length);
+            for (int i = 0; i < length; i++)
+                mobilities[from + i] = Long.bitCount(moves[i]);
+        }
+    }
+
+    /**
+     * Every array indexed alike : with distinct offsets the JIT cannot prove that
+     * writes do not overlap reads of a possibly same array, and gives up vectorizing
+     */
+    private static void legalMovesKernel(long[] players, long[] rivals, long[] moves, int length) {
+        for (int i = 0; i < length; i++)
+            moves[i] = 0L;
+        //east - west
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i] & INNER_COLUMNS;
+            long forward = rival & (player << 1);
+            long backward = rival & (player >>> 1);
+            forward |= rival & (forward << 1);
+            backward |= rival & (backward >>> 1);
+            forward |= rival & (forward << 1);
+            backward |= rival & (backward >>> 1);
+            forward |= rival & (forward << 1);
+            backward |= rival & (backward >>> 1);
+            forward |= rival & (forward << 1);
+            backward |= rival & (backward >>> 1);
+            forward |= rival & (forward << 1);
+            backward |= rival & (backward >>> 1);
+            moves[i] |= (forward << 1) | (backward >>> 1);
+        }
+        //south - north
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i];
+            long forward = rival & (player << 8);
+            long backward = rival & (player >>> 8);
+            forward |= rival & (forward << 8);
+            backward |= rival & (backward >>> 8);
+            forward |= rival & (forward << 8);
+            backward |= rival & (backward >>> 8);
+            forward |= rival & (forward << 8);
+            backward |= rival & (backward >>> 8);
+            forward |= rival & (forward << 8);
+            backward |= rival & (backward >>> 8);
+            forward |= rival & (forward << 8);
+            backward |= rival & (backward >>> 8);
+            moves[i] |= (forward << 8) | (backward >>> 8);
+        }
+        //south west - north east
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i] & INNER_COLUMNS;
+            long forward = rival & (player << 7);
+            long backward = rival & (player >>> 7);
+            forward |= rival & (forward << 7);
+            backward |= rival & (backward >>> 7);
+            forward |= rival & (forward << 7);
+            backward |= rival & (backward >>> 7);
+            forward |= rival & (forward << 7);
+            backward |= rival & (backward >>> 7);
+            forward |= rival & (forward << 7);
+            backward |= rival & (backward >>> 7);
+            forward |= rival & (forward << 7);
+            backward |= rival & (backward >>> 7);
+            moves[i] |= (forward << 7) | (backward >>> 7);
+        }
+        //south east - north west
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i] & INNER_COLUMNS;
+            long forward = rival & (player << 9);
+            long backward = rival & (player >>> 9);
+            forward |= rival & (forward << 9);
+            backward |= rival & (backward >>> 9);
+            forward |= rival & (forward << 9);
+            backward |= rival & (backward >>> 9);
+            forward |= rival & (forward << 9);
+            backward |= rival & (backward >>> 9);
+            forward |= rival & (forward << 9);
+            backward |= rival & (backward >>> 9);
+            forward |= rival & (forward << 9);
+            backward |= rival & (backward >>> 9);
+            moves[i] |= (forward << 9) | (backward >>> 9);
+        }
+        for (int i = 0; i < length; i++)
+            moves[i] &= ~(players[i] | rivals[i]);
+    }
+
+    /*=========================================================================
+                       FLIPS
+    =========================================================================*/
+
+    /**
+     * @param players  pawns of the side to move of each position
+     * @param rivals   pawns of the side waiting of each position
+     * @param squares  square played in each position, a legal destination
+     * @param reversed receives rival pawns reversed by each move, see {@link MoveGenerator#flips(long, long, int)}
+     * @param count    number of positions
+     */
+    public static void flips(long[] players, long[] rivals, int[] squares, long[] reversed, int count) {
+        flipsKernel(players, rivals, squares, 0, new long[count], reversed, count);
+    }
+
+    /**
+     * @param positions packed positions
+     * @param squares   square played in each position, a legal destination
+     * @param reversed  receives rival pawns reversed by each move
+     * @param count     number of positions
+     */
+    public static void flips(long[] positions, int[] squares, long[] reversed, int count) {
+        long[] players = new long[Math.min(BLOCK, count)];
+        long[] rivals = new long[players.length];
+        long[] moves = new long[players.length];
+        long[] blockReversed = new long[players.length];
+        for (int from = 0; from < count; from += BLOCK) {
+            int length = Math.min(BLOCK, count - from);
+            unpack(positions, from, length, players, rivals);
+            flipsKernel(players, rivals, squares, from, moves, blockReversed, length);
+            System.arraycopy(blockReversed, 0, reversed, from, length);
+        }
+    }
+
+    /**
+     * Squares read from index offset, other arrays from index 0.
+     * One loop per direction, a line being kept only if a player pawn closes it, selected without branch :
+     * <code>(closed | -closed) >> 63</code> is all ones when closed is not empty, zero otherwise.
+     *
+     * @param moves scratch array, receives the bit of each square
+     */
+    private static void flipsKernel(long[] players, long[] rivals, int[] squares, int offset,
+                                    long[] moves, long[] reversed, int length) {
+        for (int i = 0; i < length; i++)
+            moves[i] = 1L << squares[offset + i];
+        //east
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i] & INNER_COLUMNS;
+            long line = rival & (moves[i] << 1);
+            line |= rival & (line << 1);
+            line |= rival & (line << 1);
+            line |= rival & (line << 1);
+            line |= rival & (line << 1);
+            line |= rival & (line << 1);
+            long closed = player & (line << 1);
+            reversed[i] = line & ((closed | -closed) >> 63);
+        }
+        //west
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i] & INNER_COLUMNS;
+            long line = rival & (moves[i] >>> 1);
+            line |= rival & (line >>> 1);
+            line |= rival & (line >>> 1);
+            line |= rival & (line >>> 1);
+            line |= rival & (line >>> 1);
+            line |= rival & (line >>> 1);
+            long closed = player & (line >>> 1);
+            reversed[i] |= line & ((closed | -closed) >> 63);
+        }
+        //south
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i];
+            long line = rival & (moves[i] << 8);
+            line |= rival & (line << 8);
+            line |= rival & (line << 8);
+            line |= rival & (line << 8);
+            line |= rival & (line << 8);
+            line |= rival & (line << 8);
+            long closed = player & (line << 8);
+            reversed[i] |= line & ((closed | -closed) >> 63);
+        }
+        //north
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i];
+            long line = rival & (moves[i] >>> 8);
+            line |= rival & (line >>> 8);
+            line |= rival & (line >>> 8);
+            line |= rival & (line >>> 8);
+            line |= rival & (line >>> 8);
+            line |= rival & (line >>> 8);
+            long closed = player & (line >>> 8);
+            reversed[i] |= line & ((closed | -closed) >> 63);
+        }
+        //south west
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i] & INNER_COLUMNS;
+            long line = rival & (moves[i] << 7);
+            line |= rival & (line << 7);
+            line |= rival & (line << 7);
+            line |= rival & (line << 7);
+            line |= rival & (line << 7);
+            line |= rival & (line << 7);
+            long closed = player & (line << 7);
+            reversed[i] |= line & ((closed | -closed) >> 63);
+        }
+        //north east
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i] & INNER_COLUMNS;
+            long line = rival & (moves[i] >>> 7);
+            line |= rival & (line >>> 7);
+            line |= rival & (line >>> 7);
+            line |= rival & (line >>> 7);
+            line |= rival & (line >>> 7);
+            line |= rival & (line >>> 7);
+            long closed = player & (line >>> 7);
+            reversed[i] |= line & ((closed | -closed) >> 63);
+        }
+        //south east
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i] & INNER_COLUMNS;
+            long line = rival & (moves[i] << 9);
+            line |= rival & (line << 9);
+            line |= rival & (line << 9);
+            line |= rival & (line << 9);
+            line |= rival & (line << 9);
+            line |= rival & (line << 9);
+            long closed = player & (line << 9);
+            reversed[i] |= line & ((closed | -closed) >> 63);
+        }
+        //north west
+        for (int i = 0; i < length; i++) {
+            long player = players[i];
+            long rival = rivals[i] & INNER_COLUMNS;
+            long line = rival & (moves[i] >>> 9);
+            line |= rival & (line >>> 9);
+            line |= rival & (line >>> 9);
+            line |= rival & (line >>> 9);
+            line |= rival & (line >>> 9);
+            line |= rival & (line >>> 9);
+            long closed = player & (line >>> 9);
+            reversed[i] |= line & ((closed | -closed) >> 63);
+        }
+    }
+
+    /*=========================================================================
+                       PACKING
+    =========================================================================*/
+
+    /**
+     * @param players   pawns of the side to move of each position
+     * @param rivals    pawns of the side waiting of each position
+     * @param positions receives packed positions
+     * @param count     number of positions
+     */
+    public static void pack(long[] players, long[] rivals, long[] positions, int count) {
+        for (int i = 0; i < count; i++) {
+            positions[2 * i] = players[i];
+            positions[2 * i + 1] = rivals[i];
+        }
+    }
+
+    //length positions from index from into parallel arrays, from index 0
+    private static void unpack(long[] positions, int from, int length, long[] players, long[] rivals) {
+        for (int i = 0; i < length; i++) {
+            players[i] = positions[2 * (from + i)];
+            rivals[i] = positions[2 * (from + i) + 1];
+        }
+    }
+}
@@ -22,11 +22,9 @@
 package org.eisti.game.othello;
 
 import org.eisti.labs.game.AbstractBoard;
+import org.eisti.labs.game.IBoard;
 import org.eisti.labs.game.Ply;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
 import static org.eisti.labs.game.Ply.Coordinate.*;
 
 /**
@@ -52,6 +50,12 @@ import static org.eisti.labs.game.Ply.Coordinate.*;
  * </p>
  * An othello board is a 8x8 grid,
  * initialized with a 2x2 cross with white and black pawn
+ * <p/>
+ * Pawns are stored as one 64-bit mask per color (see {@link Squares} for bit layout),
+ * the framework grid is never read nor written once the board is built.
+ * <p/>
+ * A board is not synchronized : it is written only before being shared, as {@link Rules#doPly}
+ * does on a clone, then published along with its context and only read afterwards.
  *
  * @author MACHIZAUD Andréa
  * @version 6/19/11
@@ -60,99 +64,214 @@ public final class Board
         extends AbstractBoard<Board>
         implements OthelloProperties {
 
+    // no field initializer : initializeBoard() may be called by super constructor
+
+    /**
+     * Black pawns, one bit per square
+     */
+    private long blackPawns;
+    /**
+     * White pawns, one bit per square
+     */
+    private long whitePawns;
+    /**
+     * Zobrist key of pawns placement, see {@link Zobrist#pawnsKey(long, long)}
+     */
+    private long pawnsKey;
+
     public Board() {
         super(
                 OTHELLO_DIMENSION.width,
                 OTHELLO_DIMENSION.height);
     }
 
+    /*=========================================================================
+                       BITBOARD ACCESSORS
+    =========================================================================*/
+
     /**
-     * {@inheritDoc}
+     * @param color BLACK or WHITE
+     * @return pawns mask of given color
      */
-    @Override
-    public final Ply.Coordinate[] getCaseAround(Ply.Coordinate center) {
-        Collection<Ply.Coordinate> neighborhood = new ArrayList<Ply.Coordinate>(4);
-
-        final int width = getDimension().width;
-        final int height = getDimension().height;
+    public final long getPawns(int color) {
+        return color == WHITE ? whitePawns : blackPawns;
+    }
 
-        //vertical neighborhood
-        int centerRowIndex = rowLabel2index(center.getRow());
-        int centerColumnIndex = columnLabel2index(center.getColumn());
+    public final long getBlackPawns() {
+        return blackPawns;
+    }
 
-        if (centerRowIndex == 0) {//first row
+    public final long getWhitePawns() {
+        return whitePawns;
+    }
 
-            //South
+    public final long getOccupiedSquares() {
+        return blackPawns | whitePawns;
+    }
 
-            neighborhood.add(
-                    Coordinate(
-                            center.getColumn(),
-                            rowIndex2Label(centerRowIndex + 1)));
+    public final long getEmptySquares() {
+        return ~(blackPawns | whitePawns);
+    }
 
+    /**
+     * @return Zobrist key of pawns placement, side to move excluded
+     */
+    public final long getPawnsKey() {
+        return pawnsKey;
+    }
 
-        } else if (centerRowIndex == height - 1) {
+    /**
+     * Overwrite the whole position
+     *
+     * @param black black pawns mask
+     * @param white white pawns mask
+     */
+    public final void setPawns(long black, long white) {
+        if ((black & white) != 0L)
+            throw new IllegalArgumentException("Overlapping black and white pawns");
+        this.blackPawns = black;
+        this.whitePawns = white;
+        this.pawnsKey = Zobrist.pawnsKey(black, white);
+    }
 
-            //North
+    /**
+     * @param square square index
+     * @return pawn ID at given square
+     */
+    public final int getPawn(int square) {
+        long bit = 1L << square;
+        if ((blackPawns & bit) != 0L)
+            return BLACK_PAWN_ID;
+        else if ((whitePawns & bit) != 0L)
+            return WHITE_PAWN_ID;
+        else
+            return IBoard.NO_PAWN;
+    }
 
-            neighborhood.add(
-                    Coordinate(
-                            center.getColumn(),
-                            rowIndex2Label(centerRowIndex - 1)));
+    /**
+     * @param square  square index
+     * @param pawnID pawn ID to put, or NO_PAWN to clear the square
+     */
+    public final void setPawn(int square, int pawnID) {
+        long bit = 1L << square;
+        if ((blackPawns & bit) != 0L)
+            pawnsKey ^= Zobrist.pawnKey(BLACK, square);
+        else if ((whitePawns & bit) != 0L)
+            pawnsKey ^= Zobrist.pawnKey(WHITE, square);
+
+        blackPawns &= ~bit;
+        whitePawns &= ~bit;
+        if (pawnID == BLACK_PAWN_ID) {
+            blackPawns |= bit;
+            pawnsKey ^= Zobrist.pawnKey(BLACK, square);
+        } else if (pawnID == WHITE_PAWN_ID) {
+            whitePawns |= bit;
+            pawnsKey ^= Zobrist.pawnKey(WHITE, square);
+        }
+    }
 
+    /**
+     * Put a pawn and reverse rival pawns in a single update
+     *
+     * @param color    color of the player who moves
+     * @param square   square where the pawn is put
+     * @param reversed rival pawns to reverse, see {@link MoveGenerator#flips(long, long, int)}
+     */
+    public final void putPawn(int color, int square, long reversed) {
+        long changed = (1L << square) | reversed;
+        if (color == WHITE) {
+            whitePawns |= changed;
+            blackPawns &= ~reversed;
         } else {
-
-            //South
-
-            neighborhood.add(
-                    Coordinate(
-                            center.getColumn(),
-                            rowIndex2Label(centerRowIndex + 1)));
-
-            //North
-
-            neighborhood.add(
-                    Coordinate(
-                            center.getColumn(),
-                            rowIndex2Label(centerRowIndex - 1)));
+            blackPawns |= changed;
+            whitePawns &= ~reversed;
         }
+        pawnsKey ^= Zobrist.moveKey(color, square, reversed);
+    }
 
-        //horizontal neighborhood
-        if (centerColumnIndex == 0) {
-
-            //East
+    /*=========================================================================
+                       ABSTRACT BOARD PART
+    =========================================================================*/
 
-            neighborhood.add(
-                    Coordinate(
-                            columnIndex2Label(centerColumnIndex + 1),
-                            center.getRow()));
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int getPawn(Ply.Coordinate location) {
+        return getPawn(Squares.index(location));
+    }
 
-        } else if (centerColumnIndex == width - 1) {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean isAt(Ply.Coordinate location, int pawnID) {
+        return getPawn(Squares.index(location)) == pawnID;
+    }
 
-            //West
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void setPawn(Ply.Coordinate location, int pawnID) {
+        setPawn(Squares.index(location), pawnID);
+    }
 
-            neighborhood.add(
-                    Coordinate(
-                            columnIndex2Label(centerColumnIndex - 1),
-                            center.getRow()));
-        } else {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void setPawn(String column, String row, int pawnID) {
+        setPawn(rowLabel2index(row) * OTHELLO_DIMENSION.width + columnLabel2index(column), pawnID);
+    }
 
-            //East
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Board clone() {
+        Board copy = super.clone();
+        copy.blackPawns = blackPawns;
+        copy.whitePawns = whitePawns;
+        copy.pawnsKey = pawnsKey;
+        return copy;
+    }
 
-            neighborhood.add(
-                    Coordinate(
-                            columnIndex2Label(centerColumnIndex + 1),
-                            center.getRow()));
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Board)) return false;
+        Board board = (Board) o;
+        return blackPawns == board.blackPawns
+                && whitePawns == board.whitePawns;
+    }
 
-            //West
+    @Override
+    public final int hashCode() {
+        return (int) (pawnsKey ^ (pawnsKey >>> 32));
+    }
 
-            neighborhood.add(
-                    Coordinate(
-                            columnIndex2Label(centerColumnIndex - 1),
-                            center.getRow()));
+    @Override
+    public final String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < OTHELLO_DIMENSION.height; row++) {
+            for (int column = 0; column < OTHELLO_DIMENSION.width; column++) {
+                int pawnID = getPawn(row * OTHELLO_DIMENSION.width + column);
+                sb.append(pawnID == BLACK_PAWN_ID
+                        ? 'X'
+                        : pawnID == WHITE_PAWN_ID ? 'O' : '.');
+            }
+            sb.append('\n');
         }
+        return sb.toString();
+    }
 
-        return neighborhood
-                .toArray(new Ply.Coordinate[neighborhood.size()]);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Ply.Coordinate[] getCaseAround(Ply.Coordinate center) {
+        return Squares.neighbours(Squares.index(center));
     }
 
     /**
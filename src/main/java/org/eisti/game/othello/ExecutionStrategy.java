@@ -0,0 +1,286 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * How a match runs its parallel work : in the calling thread, on a fork-join pool,
+ * on virtual threads or on a custom executor.
+ * <p/>
+ * A strategy belongs to whoever created it, as {@link org.eisti.game.othello.match.Tournament} does,
+ * and is closed by it.
+ * Batches of tasks whose expected duration is below a cutoff run inline : the strategy keeps
+ * a moving average of task durations, so that small work never pays for a thread hand-off.
+ * <p/>
+ * The strategy is chosen by the {@link #PROPERTY} system property :
+ * <ul>
+ * <li><code>sequential</code>, the default ;</li>
+ * <li><code>forkjoin</code> or <code>forkjoin:N</code>, a pool of N threads, available processors by default ;</li>
+ * <li><code>virtual</code>, one virtual thread per task, needs a JVM providing them ;</li>
+ * <li>the class name of an {@link ExecutorService} with a public no-argument constructor.</li>
+ * </ul>
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class ExecutionStrategy
+        implements Closeable {
+
+    /**
+     * System property selecting the strategy, see {@link #configured()}
+     */
+    public static final String PROPERTY = "othello.execution";
+    /**
+     * Expected duration, in nanoseconds, under which a batch runs inline
+     */
+    public static final String INLINE_CUTOFF_PROPERTY = "othello.execution.inlineCutoff";
+
+    public static final String SEQUENTIAL = "sequential";
+    public static final String FORK_JOIN = "forkjoin";
+    public static final String VIRTUAL = "virtual";
+
+    static final long DEFAULT_INLINE_CUTOFF = 50000L;
+    //weight of a new sample in average task duration, as a shift
+    private static final int AVERAGE_SHIFT = 3;
+
+    private final String name;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final long inlineCutoff;
+    //0 until a task has been timed
+    private volatile long averageTaskNanos;
+
+    private ExecutionStrategy(String name, ExecutorService executor, int parallelism) {
+        this.name = name;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.inlineCutoff = Long.getLong(INLINE_CUTOFF_PROPERTY, DEFAULT_INLINE_CUTOFF);
+    }
+
+    /*=========================================================================
+                       STRATEGIES
+    =========================================================================*/
+
+    public static ExecutionStrategy sequential() {
+        return new ExecutionStrategy(SEQUENTIAL, null, 1);
+    }
+
+    public static ExecutionStrategy forkJoin(int parallelism) {
+        return new ExecutionStrategy(FORK_JOIN + ':' + parallelism, new ForkJoinPool(parallelism), parallelism);
+    }
+
+    /**
+     * @throws IllegalStateException if the JVM has no virtual thread
+     */
+    public static ExecutionStrategy virtualThreads() {
+        ExecutorService executor;
+        try {
+            //looked up at runtime, the game is compiled for older JVMs
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads are not available on this JVM");
+        } catch (Exception e) {
+            throw new Error("Unexpected error while creating virtual thread executor", e);
+        }
+        return new ExecutionStrategy(VIRTUAL, executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param executor    executor owned by the strategy from now on, shut down on {@link #close()}
+     * @param parallelism number of tasks the executor runs at once
+     */
+    public static ExecutionStrategy custom(ExecutorService executor, int parallelism) {
+        return new ExecutionStrategy(executor.getClass().getName(), executor, parallelism);
+    }
+
+    /**
+     * @param specification see class documentation
+     */
+    public static ExecutionStrategy of(String specification) {
+        String value = specification.trim();
+        if (value.equals(SEQUENTIAL))
+            return sequential();
+        if (value.equals(VIRTUAL))
+            return virtualThreads();
+        if (value.equals(FORK_JOIN))
+            return forkJoin(Runtime.getRuntime().availableProcessors());
+        if (value.startsWith(FORK_JOIN + ':'))
+            return forkJoin(Integer.parseInt(value.substring(FORK_JOIN.length() + 1)));
+        try {
+            Class<?> executorClass = Class.forName(value);
+            if (!ExecutorService.class.isAssignableFrom(executorClass))
+                throw new IllegalArgumentException("Not an executor service : " + value);
+            ExecutorService executor = (ExecutorService) executorClass.getDeclaredConstructor().newInstance();
+            return custom(executor, Runtime.getRuntime().availableProcessors());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown execution strategy : " + value);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Executor has no no-argument constructor : " + value, e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException("Executor constructor failed : " + value, e.getCause());
+        } catch (InstantiationException e) {
+            throw new IllegalArgumentException("Cannot instantiate executor : " + value, e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot instantiate executor : " + value, e);
+        }
+    }
+
+    /**
+     * @return strategy of {@link #PROPERTY} system property, sequential if unset
+     */
+    public static ExecutionStrategy configured() {
+        String specification = System.getProperty(PROPERTY);
+        return specification == null ? sequential() : of(specification);
+    }
+
+    public final String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of tasks run at once
+     */
+    public final int getParallelism() {
+        return parallelism;
+    }
+
+    /*=========================================================================
+                       EXECUTION
+    =========================================================================*/
+
+    /**
+     * @return future of task, already done for a sequential strategy
+     */
+    public final <T> Future<T> submit(Callable<T> task) {
+        if (executor == null) {
+            FutureTask<T> future = new FutureTask<T>(task);
+            future.run();
+            return future;
+        }
+        return executor.submit(task);
+    }
+
+    /**
+     * Run every task, inline when the batch is expected to be shorter than the cutoff
+     *
+     * @return results in task order
+     * @throws ExecutionException if a task failed
+     */
+    public final <T> List<T> invokeAll(List<? extends Callable<T>> tasks)
+            throws InterruptedException, ExecutionException {
+        List<T> results = new ArrayList<T>(tasks.size());
+        if (runsInline(tasks.size())) {
+            for (Callable<T> task : tasks) {
+                long start = System.nanoTime();
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    throw new ExecutionException(e);
+                }
+                record(System.nanoTime() - start);
+            }
+            return results;
+        }
+
+        List<Callable<T>> timedTasks = new ArrayList<Callable<T>>(tasks.size());
+        for (final Callable<T> task : tasks)
+            timedTasks.add(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    long start = System.nanoTime();
+                    try {
+                        return task.call();
+                    } finally {
+                        record(System.nanoTime() - start);
+                    }
+                }
+            });
+        for (Future<T> result : executor.invokeAll(timedTasks))
+            results.add(result.get());
+        return results;
+    }
+
+    /**
+     * Run every task on the executor whatever the cutoff, for long-running tasks meant to work
+     * side by side, as workers sharing a queue. Their durations are kept out of the average.
+     *
+     * @return results in task order
+     * @throws ExecutionException if a task failed
+     */
+    public final <T> List<T> invokeAllParallel(List<? extends Callable<T>> tasks)
+            throws InterruptedException, ExecutionException {
+        List<T> results = new ArrayList<T>(tasks.size());
+        if (executor == null) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    throw new ExecutionException(e);
+                }
+            }
+            return results;
+        }
+        for (Future<T> result : executor.invokeAll(tasks))
+            results.add(result.get());
+        return results;
+    }
+
+    private boolean runsInline(int tasks) {
+        if (executor == null || tasks <= 1)
+            return true;
+        long average = averageTaskNanos;
+        //unknown duration : let the pool take it, first tasks will tell
+        return average != 0L && average * tasks < inlineCutoff * Math.min(tasks, parallelism);
+    }
+
+    private void record(long nanos) {
+        long average = averageTaskNanos;
+        averageTaskNanos = average == 0L
+                ? Math.max(1L, nanos)
+                : Math.max(1L, average + ((nanos - average) >> AVERAGE_SHIFT));
+    }
+
+    /**
+     * Stop executor threads, running tasks are interrupted
+     */
+    @Override
+    public final void close() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    @Override
+    public final String toString() {
+        return name;
+    }
+}
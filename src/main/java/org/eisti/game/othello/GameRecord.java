@@ -0,0 +1,243 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import org.eisti.labs.game.IBoard;
+
+/**
+ * Compact game history : start position, one byte per ply and the pawn masks every
+ * {@link #CHECKPOINT_INTERVAL} plies. Any past board is rebuilt on demand by replaying
+ * at most {@link #CHECKPOINT_INTERVAL} - 1 moves from the closest checkpoint.
+ * <p/>
+ * A ply is a square index or {@link Squares#PASS}, colors alternate from the first mover.
+ * A record is immutable : {@link #append(int)} returns a longer record sharing this one's storage,
+ * which is copied only when two records are appended to the same one, as when a search branches.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class GameRecord
+        implements OthelloProperties {
+
+    /**
+     * Number of plies between two stored positions
+     */
+    public static final int CHECKPOINT_INTERVAL = 16;
+
+    private static final int INITIAL_CAPACITY = Squares.SQUARES_COUNT;
+
+    /**
+     * Last ply written in shared storage, appending elsewhere must copy
+     */
+    private static final class Storage {
+        private int plies;
+    }
+
+    private final Storage storage;
+    private final byte[] moves;
+    //black and white masks of each checkpoint
+    private final long[] checkpoints;
+    private final int plies;
+    private final int firstColor;
+    private final long blackPawns;
+    private final long whitePawns;
+
+    private GameRecord(Storage storage, byte[] moves, long[] checkpoints, int plies,
+                       int firstColor, long blackPawns, long whitePawns) {
+        this.storage = storage;
+        this.moves = moves;
+        this.checkpoints = checkpoints;
+        this.plies = plies;
+        this.firstColor = firstColor;
+        this.blackPawns = blackPawns;
+        this.whitePawns = whitePawns;
+    }
+
+    /**
+     * @param start      first board
+     * @param firstColor color to move on first board, BLACK or WHITE
+     */
+    public GameRecord(Board start, int firstColor) {
+        this(new Storage(), new byte[INITIAL_CAPACITY], new long[2 * (INITIAL_CAPACITY / CHECKPOINT_INTERVAL + 1)],
+                0, firstColor, start.getBlackPawns(), start.getWhitePawns());
+        checkpoints[0] = blackPawns;
+        checkpoints[1] = whitePawns;
+    }
+
+    /**
+     * @param history    boards of a game, a pass repeating the previous board
+     * @param firstColor color to move on first board, BLACK or WHITE
+     * @throws IllegalArgumentException if a board does not follow from the previous one by one ply
+     */
+    public static GameRecord of(IBoard[] history, int firstColor) {
+        GameRecord record = new GameRecord((Board) history[0], firstColor);
+        for (int i = 1; i < history.length; i++) {
+            Board board = (Board) history[i];
+            long added = board.getOccupiedSquares() & ~((Board) history[i - 1]).getOccupiedSquares();
+            if (Long.bitCount(added) > 1)
+                throw new IllegalArgumentException("Board " + i + " does not follow from previous one");
+            record = record.append(added == 0L ? Squares.PASS : Long.numberOfTrailingZeros(added));
+            if (record.blackPawns != board.getBlackPawns() || record.whitePawns != board.getWhitePawns())
+                throw new IllegalArgumentException("Board " + i + " does not follow from previous one");
+        }
+        return record;
+    }
+
+    /*=========================================================================
+                       PLIES
+    =========================================================================*/
+
+    /**
+     * @return number of plies, one less than number of boards
+     */
+    public final int getPlies() {
+        return plies;
+    }
+
+    /**
+     * @return square of given ply, or {@link Squares#PASS}
+     */
+    public final int getMove(int ply) {
+        if (ply < 0 || ply >= plies)
+            throw new IndexOutOfBoundsException("Ply " + ply + " of " + plies);
+        return moves[ply];
+    }
+
+    /**
+     * @return color playing given ply, or to move after the last one
+     */
+    public final int getColor(int ply) {
+        return firstColor ^ (ply & 1);
+    }
+
+    /**
+     * Legality is not checked, the move must come from the rules
+     *
+     * @param square square played by color to move, or {@link Squares#PASS}
+     * @return this record followed by given ply
+     */
+    public final GameRecord append(int square) {
+        long nextBlack = blackPawns;
+        long nextWhite = whitePawns;
+        if (square != Squares.PASS) {
+            if (getColor(plies) == BLACK) {
+                long reversed = MoveGenerator.flips(blackPawns, whitePawns, square);
+                nextBlack |= reversed | (1L << square);
+                nextWhite &= ~reversed;
+            } else {
+                long reversed = MoveGenerator.flips(whitePawns, blackPawns, square);
+                nextWhite |= reversed | (1L << square);
+                nextBlack &= ~reversed;
+            }
+        }
+
+        Storage nextStorage = storage;
+        byte[] nextMoves = moves;
+        long[] nextCheckpoints = checkpoints;
+        synchronized (storage) {
+            if (storage.plies != plies) {
+                //storage continues another game branch
+                nextStorage = new Storage();
+                nextMoves = moves.clone();
+                nextCheckpoints = checkpoints.clone();
+            }
+            if (plies == nextMoves.length) {
+                nextMoves = copyOf(nextMoves, 2 * nextMoves.length);
+                nextCheckpoints = copyOf(nextCheckpoints, 2 * (nextMoves.length / CHECKPOINT_INTERVAL + 1));
+            }
+            nextMoves[plies] = (byte) square;
+            if ((plies + 1) % CHECKPOINT_INTERVAL == 0) {
+                int checkpoint = 2 * ((plies + 1) / CHECKPOINT_INTERVAL);
+                nextCheckpoints[checkpoint] = nextBlack;
+                nextCheckpoints[checkpoint + 1] = nextWhite;
+            }
+            nextStorage.plies = plies + 1;
+        }
+        return new GameRecord(nextStorage, nextMoves, nextCheckpoints, plies + 1,
+                firstColor, nextBlack, nextWhite);
+    }
+
+    private static byte[] copyOf(byte[] array, int length) {
+        byte[] copy = new byte[length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    private static long[] copyOf(long[] array, int length) {
+        long[] copy = new long[length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    /*=========================================================================
+                       BOARDS
+    =========================================================================*/
+
+    /**
+     * @return board after given number of plies, 0 for the first board
+     */
+    public final Board getBoard(int ply) {
+        if (ply < 0 || ply > plies)
+            throw new IndexOutOfBoundsException("Board " + ply + " of " + (plies + 1));
+        if (ply == plies)
+            return getCurrentBoard();
+
+        int checkpoint = ply / CHECKPOINT_INTERVAL;
+        long black = checkpoints[2 * checkpoint];
+        long white = checkpoints[2 * checkpoint + 1];
+        for (int i = checkpoint * CHECKPOINT_INTERVAL; i < ply; i++) {
+            int square = moves[i];
+            if (square == Squares.PASS)
+                continue;
+            if (getColor(i) == BLACK) {
+                long reversed = MoveGenerator.flips(black, white, square);
+                black |= reversed | (1L << square);
+                white &= ~reversed;
+            } else {
+                long reversed = MoveGenerator.flips(white, black, square);
+                white |= reversed | (1L << square);
+                black &= ~reversed;
+            }
+        }
+        return board(black, white);
+    }
+
+    public final Board getCurrentBoard() {
+        return board(blackPawns, whitePawns);
+    }
+
+    /**
+     * @return every board, as a full history
+     */
+    public final Board[] toHistory() {
+        Board[] history = new Board[plies + 1];
+        for (int ply = 0; ply <= plies; ply++)
+            history[ply] = getBoard(ply);
+        return history;
+    }
+
+    private static Board board(long black, long white) {
+        Board board = new Board();
+        board.setPawns(black, white);
+        return board;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+/**
+ * Bitboard move generation.
+ * <p/>
+ * Every direction is scanned at once for all the pawns with a shift-and-mask flood fill
+ * (dumb7fill), six steps being enough to cross the longest rival line of an 8x8 board.
+ * Masks follow {@link Squares} layout.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class MoveGenerator {
+
+    /**
+     * Every square but those on A and H columns,
+     * prevents horizontal and diagonal shifts from wrapping to next row
+     */
+    static final long INNER_COLUMNS = 0x7E7E7E7E7E7E7E7EL;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Compute every legal destination of a player
+     *
+     * @param player pawns of the player to move
+     * @param rival  pawns of his rival
+     * @return mask of the empty squares where player can put a pawn
+     */
+    public static long legalMoves(long player, long rival) {
+        long horizontalRival = rival & INNER_COLUMNS;
+        long moves = directionMoves(player, horizontalRival, 1)  // east - west
+                | directionMoves(player, rival, 8)               // south - north
+                | directionMoves(player, horizontalRival, 7)     // south west - north east
+                | directionMoves(player, horizontalRival, 9);    // south east - north west
+        return moves & ~(player | rival);
+    }
+
+    /**
+     * @param player pawns of the player to move
+     * @param rival  pawns of his rival
+     * @return if player has at least one legal move
+     */
+    public static boolean hasLegalMove(long player, long rival) {
+        //axis by axis, stops at the first one giving a move
+        long empty = ~(player | rival);
+        long horizontalRival = rival & INNER_COLUMNS;
+        return (directionMoves(player, horizontalRival, 1) & empty) != 0L
+                || (directionMoves(player, rival, 8) & empty) != 0L
+                || (directionMoves(player, horizontalRival, 7) & empty) != 0L
+                || (directionMoves(player, horizontalRival, 9) & empty) != 0L;
+    }
+
+    /**
+     * Compute every rival pawn reversed by a move, all directions in one pass
+     *
+     * @param player pawns of the player to move
+     * @param rival  pawns of his rival
+     * @param square square where player puts his pawn
+     * @return mask of reversed rival pawns, empty if the move reverses nothing
+     */
+    public static long flips(long player, long rival, int square) {
+        long move = 1L << square;
+        long horizontalRival = rival & INNER_COLUMNS;
+        return forwardFlips(move, player, horizontalRival, 1)      // east
+                | backwardFlips(move, player, horizontalRival, 1)  // west
+                | forwardFlips(move, player, rival, 8)             // south
+                | backwardFlips(move, player, rival, 8)            // north
+                | forwardFlips(move, player, horizontalRival, 7)   // south west
+                | backwardFlips(move, player, horizontalRival, 7)  // north east
+                | forwardFlips(move, player, horizontalRival, 9)   // south east
+                | backwardFlips(move, player, horizontalRival, 9); // north west
+    }
+
+    /**
+     * @return rival line starting next to move toward higher squares, if it ends on a player pawn
+     */
+    private static long forwardFlips(long move, long player, long rival, int shift) {
+        long line = rival & (move << shift);
+        line |= rival & (line << shift);
+        line |= rival & (line << shift);
+        line |= rival & (line << shift);
+        line |= rival & (line << shift);
+        line |= rival & (line << shift);
+        return (player & (line << shift)) != 0L ? line : 0L;
+    }
+
+    /**
+     * @return rival line starting next to move toward lower squares, if it ends on a player pawn
+     */
+    private static long backwardFlips(long move, long player, long rival, int shift) {
+        long line = rival & (move >>> shift);
+        line |= rival & (line >>> shift);
+        line |= rival & (line >>> shift);
+        line |= rival & (line >>> shift);
+        line |= rival & (line >>> shift);
+        line |= rival & (line >>> shift);
+        return (player & (line >>> shift)) != 0L ? line : 0L;
+    }
+
+    /**
+     * Flood player pawns through adjacent rival pawns along one axis, both ways
+     *
+     * @param player pawns of the player to move
+     * @param rival  rival pawns that can be crossed along this axis
+     * @param shift  bit distance between two neighbours along this axis
+     * @return squares right behind a rival line starting from a player pawn
+     */
+    private static long directionMoves(long player, long rival, int shift) {
+        long forward = rival & (player << shift);
+        long backward = rival & (player >>> shift);
+        forward |= rival & (forward << shift);
+        backward |= rival & (backward >>> shift);
+        forward |= rival & (forward << shift);
+        backward |= rival & (backward >>> shift);
+        forward |= rival & (forward << shift);
+        backward |= rival & (backward >>> shift);
+        forward |= rival & (forward << shift);
+        backward |= rival & (backward >>> shift);
+        forward |= rival & (forward << shift);
+        backward |= rival & (backward >>> shift);
+        return (forward << shift) | (backward >>> shift);
+    }
+}
@@ -47,8 +47,8 @@ public final class Othello
     }
 
     @Override
-    public final void shutdownHook(){
-        Rules.LINE_CHECKER.shutdownNow();
+    public final void shutdownHook() {
+        //rules hold no thread, nothing to release
     }
 
     @Override
@@ -1,130 +1,292 @@
-/*
- * #%L
- * Othello Game Project
- * %%
- * Copyright (C) 2011 MACHIZAUD Andréa
- * %%
- * This program is free software: you can redistribute it and/or modify
- * it under the terms of the GNU General Public License as
- * published by the Free Software Foundation, either version 3 of the 
- * License, or (at your option) any later version.
- * 
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU General Public License for more details.
- * 
- * You should have received a copy of the GNU General Public 
- * License along with this program.  If not, see
- * <http://www.gnu.org/licenses/gpl-3.0.html>.
- * #L%
- */
-package org.eisti.game.othello;
-
-import org.eisti.game.othello.tasks.PlayerHasRemainingPlies;
-import org.eisti.labs.game.*;
-import org.eisti.labs.util.Tuple;
-
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-
-/**
- * @author MACHIZAUD Andréa
- * @version 23/06/11
- */
-public final class OthelloContext
-        extends GameContext<Board, OthelloContext>
-        implements OthelloProperties {
-
-    private static Board[] castArray(final IBoard[] generalArray) {
-        Board[] castedArray = new Board[generalArray.length];
-        for (int i = generalArray.length; i-- > 0; )
-            castedArray[i] = (Board) generalArray[i];
-        return castedArray;
-    }
-
-    public OthelloContext(
-            Clock elapsedTime,
-            IBoard[] history,
-            IPlayer[] playersInGame,
-            Clock[] playersRemainingTime) {
-        super(elapsedTime, castArray(history), playersInGame, playersRemainingTime);
-    }
-
-    private OthelloContext() {
-        super();
-    }
-
-    //TODO Test Case
-    @Override
-    public final GameState getState() {
-        int[] pawnCounter = new int[NUMBERS_OF_PLAYERS];
-        pawnCounter[BLACK] = pawnCounter[WHITE] = 0;
-        Board currentBoard = getBoard();
-        Tuple<IPlayer, Clock>[] players = getPlayers();
-
-        ExecutorService remainingMoveChecker = null;
-        try {
-            remainingMoveChecker = Executors.newFixedThreadPool(2);
-            //current context, player one is current player
-            OthelloContext playerOneContext = this;//changePerspective(players[BLACK])
-            //same context but as rival's perspective
-            OthelloContext playerTwoContext = changePerspective(players[WHITE].getFirst());
-
-            //check remaining moves for player 1
-            Future<Boolean> remainingMovesPlayerOne = remainingMoveChecker.submit(
-                    new PlayerHasRemainingPlies(playerOneContext));
-            //check remaining moves for player 2
-            Future<Boolean> remainingMovesPlayerTwo = remainingMoveChecker.submit(
-                    new PlayerHasRemainingPlies(playerTwoContext));
-
-            //some player has remaining move : game goes on
-            if (remainingMovesPlayerOne.get()
-                    || remainingMovesPlayerTwo.get()) {
-                return GameState.RUNNING;
-            }//no one else can play : compute statistics and determine winner
-            else {
-                //gather statistics
-                for (Ply.Coordinate location : currentBoard) {
-                    int pawnID = currentBoard.getPawn(location);
-                    if (pawnID == BLACK_PAWN_ID) {
-                        pawnCounter[BLACK]++;
-                    } else if (pawnID == WHITE_PAWN_ID) {
-                        pawnCounter[WHITE]++;
-                    }
-                }
-
-                //decide who won
-                IPlayer currentPlayer = getActivePlayer().getFirst();
-                if (pawnCounter[BLACK] > pawnCounter[WHITE]) {
-                    if (currentPlayer == players[BLACK].getFirst())
-                        return GameState.WIN;
-                    else
-                        return GameState.LOSE;
-                } else if (pawnCounter[WHITE] > pawnCounter[BLACK]) {
-                    if (currentPlayer == players[WHITE].getFirst())
-                        return GameState.WIN;
-                    else
-                        return GameState.LOSE;
-                } else
-                    return GameState.DRAW;
-            }
-
-        } catch (InterruptedException e) {
-            //Computation can be interrupted by bot worker
-            return null;
-        } catch (ExecutionException e) {
-            throw new Error("Unexpected error while computing remaining player's moves", e);
-        } finally {
-            if (remainingMoveChecker != null)
-                remainingMoveChecker.shutdownNow();
-        }
-    }
-
-    @Override
-    protected final OthelloContext buildEmptyContext() {
-        return new OthelloContext();
-    }
-}
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import org.eisti.labs.game.*;
+
+import java.util.Set;
+
+import static java.lang.Long.bitCount;
+
+/**
+ * A context does not change once published : memoized values are racy but idempotent,
+ * and compact history fields are published by a volatile write, see {@link #keepRecord}.
+ * Independent games can therefore be played from any threads, a context being handed
+ * from one thread to the next as {@link org.eisti.game.othello.match.MatchScheduler} does.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 23/06/11
+ */
+public final class OthelloContext
+        extends GameContext<Board, OthelloContext>
+        implements OthelloProperties {
+
+    //sentinel of a legal move mask not computed yet, every square cannot be legal at once
+    private static final long UNKNOWN_MOVES = -1L;
+
+    //memoized values, racy single-check : a duplicate computation gives the same value
+    private volatile GameState state;
+    private volatile long blackMoves = UNKNOWN_MOVES;
+    private volatile long whiteMoves = UNKNOWN_MOVES;
+    private volatile Set<Ply> activeMoves;
+
+    /**
+     * System property enabling compact history, see {@link #getRecord()}
+     */
+    public static final String COMPACT_HISTORY_PROPERTY = "othello.history.compact";
+
+    private static final boolean COMPACT_HISTORY = Boolean.getBoolean(COMPACT_HISTORY_PROPERTY);
+
+    //compact history mode only, what a successor context is built from
+    //record is written last and read first : its volatile write publishes the other fields
+    private volatile GameRecord record;
+    private Clock elapsedTime;
+    private IPlayer[] playersInGame;
+    private Clock[] playersRemainingTime;
+
+    private static Board[] castArray(final IBoard[] generalArray) {
+        //already typed, nothing to copy
+        if (generalArray instanceof Board[])
+            return (Board[]) generalArray;
+        Board[] castedArray = new Board[generalArray.length];
+        for (int i = generalArray.length; i-- > 0; )
+            castedArray[i] = (Board) generalArray[i];
+        return castedArray;
+    }
+
+    public OthelloContext(
+            Clock elapsedTime,
+            IBoard[] history,
+            IPlayer[] playersInGame,
+            Clock[] playersRemainingTime) {
+        super(elapsedTime,
+                COMPACT_HISTORY ? new Board[]{(Board) history[history.length - 1]} : castArray(history),
+                playersInGame, playersRemainingTime);
+        if (COMPACT_HISTORY) {
+            //colors alternate back to the first board, passes included
+            int firstColor = getActiveColor() ^ ((history.length - 1) & 1);
+            keepRecord(GameRecord.of(history, firstColor), elapsedTime, playersInGame, playersRemainingTime);
+        }
+    }
+
+    private OthelloContext(
+            Clock elapsedTime,
+            GameRecord record,
+            Board currentBoard,
+            IPlayer[] playersInGame,
+            Clock[] playersRemainingTime) {
+        super(elapsedTime, new Board[]{currentBoard}, playersInGame, playersRemainingTime);
+        keepRecord(record, elapsedTime, playersInGame, playersRemainingTime);
+    }
+
+    private OthelloContext() {
+        super();
+    }
+
+    /**
+     * Game is over once neither side can move, the side owning most pawns wins.
+     * State is computed once, a context does not change after being built.
+     *
+     * @return state from active player point of view
+     */
+    @Override
+    public final GameState getState() {
+        GameState known = state;
+        if (known == null)
+            state = known = computeState();
+        return known;
+    }
+
+    private GameState computeState() {
+        Board currentBoard = getBoard();
+        long blackPawns = currentBoard.getBlackPawns();
+        long whitePawns = currentBoard.getWhitePawns();
+
+        //some player has remaining move : game goes on
+        if (hasLegalMove(BLACK, blackPawns, whitePawns)
+                || hasLegalMove(WHITE, whitePawns, blackPawns))
+            return GameState.RUNNING;
+
+        //no one else can play : decide who won
+        int blackCount = bitCount(blackPawns);
+        int whiteCount = bitCount(whitePawns);
+        if (blackCount == whiteCount)
+            return GameState.DRAW;
+        int winner = blackCount > whiteCount ? BLACK : WHITE;
+        IPlayer currentPlayer = getActivePlayer().getFirst();
+        return currentPlayer == getPlayers()[winner].getFirst()
+                ? GameState.WIN
+                : GameState.LOSE;
+    }
+
+    //known masks answer at once, otherwise stop at the first move found
+    private boolean hasLegalMove(int color, long player, long rival) {
+        long moves = color == BLACK ? blackMoves : whiteMoves;
+        return moves == UNKNOWN_MOVES
+                ? MoveGenerator.hasLegalMove(player, rival)
+                : moves != 0L;
+    }
+
+    /*=========================================================================
+                       LEGAL MOVES
+    =========================================================================*/
+
+    /**
+     * @return color of active player, BLACK or WHITE
+     */
+    public final int getActiveColor() {
+        return Rules.getColor(getActivePlayer().getFirst());
+    }
+
+    /**
+     * Computed once per color, a context does not change after being built
+     *
+     * @param color BLACK or WHITE
+     * @return mask of every legal destination of given color, see {@link Squares}
+     */
+    public final long getLegalMoveMask(int color) {
+        long moves = color == BLACK ? blackMoves : whiteMoves;
+        if (moves == UNKNOWN_MOVES) {
+            Board currentBoard = getBoard();
+            moves = MoveGenerator.legalMoves(currentBoard.getPawns(color), currentBoard.getPawns(color ^ 1));
+            if (color == BLACK)
+                blackMoves = moves;
+            else
+                whiteMoves = moves;
+        }
+        return moves;
+    }
+
+    /**
+     * @return mask of every legal destination of active player
+     */
+    public final long getLegalMoveMask() {
+        return getLegalMoveMask(getActiveColor());
+    }
+
+    /**
+     * @return legal plies of active player, pass excluded, shared and unmodifiable
+     */
+    public final Set<Ply> getLegalMoves() {
+        Set<Ply> legalPlys = activeMoves;
+        if (legalPlys == null)
+            activeMoves = legalPlys = new PlySet(getLegalMoveMask());
+        return legalPlys;
+    }
+
+    /*=========================================================================
+                       HISTORY
+    =========================================================================*/
+
+    private void keepRecord(GameRecord record, Clock elapsedTime,
+                            IPlayer[] playersInGame, Clock[] playersRemainingTime) {
+        this.elapsedTime = elapsedTime;
+        this.playersInGame = playersInGame;
+        this.playersRemainingTime = playersRemainingTime;
+        this.record = record;
+    }
+
+    /**
+     * Compact history, enabled by {@link #COMPACT_HISTORY_PROPERTY} : one byte per ply instead of one board.
+     * Framework history then only holds the current board, past boards are rebuilt from the record.
+     * Contexts derived by {@link #changePerspective(IPlayer)} and {@link #branchOff(Board)} carry it along.
+     *
+     * @return whole game history, null if history is not compact
+     * @throws IllegalStateException if history is compact but context was derived without its record
+     */
+    public final GameRecord getRecord() {
+        GameRecord known = record;
+        if (known == null && COMPACT_HISTORY)
+            throw new IllegalStateException("Compact history lost, context was not derived from a recorded one");
+        return known;
+    }
+
+    /**
+     * Same game seen by another player, record included
+     */
+    @Override
+    public final OthelloContext changePerspective(IPlayer player) {
+        OthelloContext perspective = super.changePerspective(player);
+        GameRecord known = record;
+        if (known != null)
+            perspective.keepRecord(known, elapsedTime, playersInGame, playersRemainingTime);
+        return perspective;
+    }
+
+    /**
+     * With compact history, next board must follow current one by a single ply or a pass,
+     * so that the ply can be appended to the record.
+     *
+     * @throws IllegalArgumentException if history is compact and next board is not one ply away
+     */
+    @Override
+    public final OthelloContext branchOff(Board next) {
+        if (record == null)
+            return super.branchOff(next);
+        return successor(plyTo(next), next);
+    }
+
+    //square put on the board by the ply leading to next board, pass if boards are the same
+    private int plyTo(Board next) {
+        Board current = getBoard();
+        long added = next.getOccupiedSquares() & ~current.getOccupiedSquares();
+        if (added == 0L && next.equals(current))
+            return Squares.PASS;
+        if (bitCount(added) != 1 || (current.getOccupiedSquares() & ~next.getOccupiedSquares()) != 0L)
+            throw new IllegalArgumentException("Board is not one ply away, compact history cannot record it :\n" + next);
+        return Long.numberOfTrailingZeros(added);
+    }
+
+    /**
+     * @param square square played by active player, or {@link Squares#PASS}
+     * @param next   board once the ply is played
+     * @return context of the next player
+     */
+    final OthelloContext successor(int square, Board next) {
+        GameRecord known = record;
+        if (known == null)
+            return super.branchOff(next);
+
+        OthelloContext successor = new OthelloContext(
+                elapsedTime, known.append(square), next, playersInGame, playersRemainingTime);
+        IPlayer activePlayer = getActivePlayer().getFirst();
+        int active = 0;
+        while (playersInGame[active] != activePlayer)
+            active++;
+        return successor.changePerspective(playersInGame[(active + 1) % playersInGame.length]);
+    }
+
+    /**
+     * @return Zobrist key of current board, active player included
+     */
+    public final long getPositionKey() {
+        long pawnsKey = getBoard().getPawnsKey();
+        return getActiveColor() == WHITE
+                ? pawnsKey ^ Zobrist.SIDE_TO_MOVE
+                : pawnsKey;
+    }
+
+    @Override
+    protected final OthelloContext buildEmptyContext() {
+        return new OthelloContext();
+    }
+}
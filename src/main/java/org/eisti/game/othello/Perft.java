@@ -0,0 +1,475 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import org.eisti.labs.game.Clock;
+import org.eisti.labs.game.GameState;
+import org.eisti.labs.game.IBoard;
+import org.eisti.labs.game.IPlayer;
+import org.eisti.labs.game.Ply;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+
+/**
+ * Move generation check and benchmark : number of leaves of the game tree down to a given depth.
+ * <p/>
+ * As in {@link Rules#doPly(OthelloContext, org.eisti.labs.game.Ply)}, a pass is a ply of its own.
+ * A finished game is a leaf whatever the remaining depth.
+ * <p/>
+ * Subtrees may be split over a fork-join pool, each worker thread then owns a small
+ * hash table of subtree counts so that transpositions are counted once per thread, without locking.
+ * <p/>
+ * Counting is done on {@link SearchPosition}s by default. With <code>-rules</code>, it goes through
+ * the framework path instead, see {@link #countRules(OthelloContext, int)} : every ply is played by
+ * {@link Rules#doPly(OthelloContext, Ply)} on {@link OthelloContext}s, in the calling thread, unhashed.
+ * This checks the rules at scale, and its leaves per second are the rules baseline.
+ * <p/>
+ * Usage : <code>Perft [-rules] [-divide] [-threads N] [-hash MB] depth [position]</code>
+ * or <code>Perft [-rules] -check [depth]</code> to compare with known counts from the start position.
+ * A position is 64 squares from A1 to H8, <code>X</code> black, <code>O</code> white,
+ * <code>-</code> or <code>.</code> empty, followed by the side to move, <code>X</code> or <code>O</code>.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class Perft
+        implements OthelloProperties {
+
+    /**
+     * Known counts from the start position, indexed by depth
+     */
+    public static final long[] INITIAL_COUNTS = {
+            1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L,
+            24571284L, 212258800L, 1939886636L, 18429641748L
+    };
+
+    //subtrees shallower than that are not split
+    private static final int SPLIT_DEPTH = 6;
+    //subtrees shallower than that are not hashed
+    private static final int HASH_DEPTH = 3;
+    private static final int ENTRY_BYTES = 16;
+
+    //stateless, shared by every rules count
+    private static final Rules RULES = new Rules();
+
+    private final int threads;
+    private final int hashSizeInMB;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Table> tables = new ThreadLocal<Table>() {
+        @Override
+        protected Table initialValue() {
+            return new Table(hashSizeInMB);
+        }
+    };
+
+    /**
+     * @param threads      number of threads, 1 to count in caller thread
+     * @param hashSizeInMB hash table size per thread, 0 for none
+     */
+    public Perft(int threads, int hashSizeInMB) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("At least one thread is needed : " + threads);
+        if (hashSizeInMB < 0)
+            throw new IllegalArgumentException("Negative hash size : " + hashSizeInMB);
+        this.threads = threads;
+        this.hashSizeInMB = hashSizeInMB;
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    public static void main(String[] args) {
+        boolean divide = false;
+        boolean check = false;
+        boolean rules = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashSizeInMB = 16;
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i++) {
+            if ("-divide".equals(args[i]))
+                divide = true;
+            else if ("-check".equals(args[i]))
+                check = true;
+            else if ("-rules".equals(args[i]))
+                rules = true;
+            else if ("-threads".equals(args[i]))
+                threads = Integer.parseInt(args[++i]);
+            else if ("-hash".equals(args[i]))
+                hashSizeInMB = Integer.parseInt(args[++i]);
+            else
+                usage();
+        }
+        if (!check && i == args.length)
+            usage();
+
+        Perft perft = new Perft(threads, hashSizeInMB);
+        try {
+            if (check) {
+                int depth = i < args.length ? Integer.parseInt(args[i]) : 11;
+                System.exit(perft.check(Math.min(depth, INITIAL_COUNTS.length - 1), rules) ? 0 : 1);
+            }
+            int depth = Integer.parseInt(args[i]);
+            SearchPosition root = i + 1 < args.length ? parse(args[i + 1]) : SearchPosition.initial();
+            long start = System.nanoTime();
+            long count;
+            if (divide) {
+                long[] counts = rules ? divideRules(context(root), depth) : perft.divide(root, depth);
+                count = 0L;
+                for (int square = 0; square < counts.length; square++) {
+                    if (counts[square] == 0L)
+                        continue;
+                    System.out.println((square == Squares.PASS ? "PASS" : Squares.coordinate(square)) + "\t" + counts[square]);
+                    count += counts[square];
+                }
+            } else {
+                count = rules ? countRules(context(root), depth) : perft.count(root, depth);
+            }
+            report(depth, count, System.nanoTime() - start);
+        } finally {
+            perft.shutdown();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage : Perft [-rules] [-divide] [-threads N] [-hash MB] depth [position]");
+        System.err.println("        Perft [-rules] -check [depth]");
+        System.exit(1);
+    }
+
+    private static void report(int depth, long count, long nanos) {
+        System.out.println(String.format("depth %d\t%d leaves\t%d ms\t%d leaves/s",
+                depth, count, nanos / 1000000L, nanos == 0L ? 0L : count * 1000000000L / nanos));
+    }
+
+    /**
+     * Compare counts from the start position with {@link #INITIAL_COUNTS}
+     *
+     * @param rules whether to count through {@link #countRules(OthelloContext, int)}
+     * @return whether every count matches
+     */
+    public final boolean check(int maxDepth, boolean rules) {
+        boolean passed = true;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long start = System.nanoTime();
+            long count = rules
+                    ? countRules(context(SearchPosition.initial()), depth)
+                    : count(SearchPosition.initial(), depth);
+            report(depth, count, System.nanoTime() - start);
+            if (count != INITIAL_COUNTS[depth]) {
+                System.out.println("MISMATCH, expected " + INITIAL_COUNTS[depth]);
+                passed = false;
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Release pool threads
+     */
+    public final void shutdown() {
+        if (pool != null)
+            pool.shutdown();
+    }
+
+    /*=========================================================================
+                       COUNTING
+    =========================================================================*/
+
+    /**
+     * @return number of leaves at given depth below root, left unchanged
+     */
+    public final long count(SearchPosition root, int depth) {
+        if (depth <= 0)
+            return 1L;
+        return pool == null
+                ? perft(root.copy(), depth, tables.get())
+                : pool.invoke(new Subtree(root.copy(), depth));
+    }
+
+    /**
+     * @return number of leaves below each root move, indexed by square, {@link Squares#PASS} included
+     */
+    public final long[] divide(SearchPosition root, int depth) {
+        long[] counts = new long[Squares.SQUARES_COUNT + 1];
+        if (depth <= 0)
+            return counts;
+        long moves = root.legalMoves();
+        if (moves == 0L) {
+            if (root.rivalLegalMoves() != 0L) {
+                SearchPosition child = root.copy();
+                child.makePass();
+                counts[Squares.PASS] = count(child, depth - 1);
+            }
+            return counts;
+        }
+
+        List<ForkJoinTask<Long>> tasks = new ArrayList<ForkJoinTask<Long>>(bitCount(moves));
+        for (long remaining = moves; remaining != 0L; remaining &= remaining - 1) {
+            SearchPosition child = root.copy();
+            child.makeMove(numberOfTrailingZeros(remaining));
+            if (pool == null)
+                counts[numberOfTrailingZeros(remaining)] = count(child, depth - 1);
+            else
+                tasks.add(pool.submit(new Subtree(child, depth - 1)));
+        }
+        int next = 0;
+        for (long remaining = moves; pool != null && remaining != 0L; remaining &= remaining - 1)
+            counts[numberOfTrailingZeros(remaining)] = tasks.get(next++).join();
+        return counts;
+    }
+
+    private static long perft(SearchPosition position, int depth, Table table) {
+        long moves = position.legalMoves();
+        if (moves == 0L) {
+            if (position.rivalLegalMoves() == 0L)
+                //game over
+                return 1L;
+            if (depth == 1)
+                return 1L;
+            position.makePass();
+            long count = perft(position, depth - 1, table);
+            position.unmakePass();
+            return count;
+        }
+        if (depth == 1)
+            return bitCount(moves);
+
+        long key = position.getKey();
+        if (depth >= HASH_DEPTH && table != null) {
+            long known = table.probe(key, depth);
+            if (known >= 0L)
+                return known;
+        }
+
+        long count = 0L;
+        for (; moves != 0L; moves &= moves - 1) {
+            int square = numberOfTrailingZeros(moves);
+            long undo = position.makeMove(square);
+            count += perft(position, depth - 1, table);
+            position.unmakeMove(square, undo);
+        }
+
+        if (depth >= HASH_DEPTH && table != null)
+            table.store(key, depth, count);
+        return count;
+    }
+
+    /*=========================================================================
+                       COUNTING THROUGH RULES
+    =========================================================================*/
+
+    /**
+     * Same count as {@link #count(SearchPosition, int)}, every ply being played by {@link Rules},
+     * a pass included, and every leaf ply too : legal moves, state and boards of contexts are all used.
+     *
+     * @return number of leaves at given depth below root
+     */
+    public static long countRules(OthelloContext root, int depth) {
+        if (depth <= 0 || root.getState() != GameState.RUNNING)
+            return 1L;
+        Set<Ply> moves = Rules.legalMoves(root);
+        if (moves.isEmpty())
+            return countRules(RULES.doPly(root, Ply.PASS), depth - 1);
+        long count = 0L;
+        for (Ply move : moves)
+            count += countRules(RULES.doPly(root, move), depth - 1);
+        return count;
+    }
+
+    /**
+     * @return number of leaves below each root move through {@link Rules}, indexed by square,
+     * {@link Squares#PASS} included
+     */
+    public static long[] divideRules(OthelloContext root, int depth) {
+        long[] counts = new long[Squares.SQUARES_COUNT + 1];
+        if (depth <= 0 || root.getState() != GameState.RUNNING)
+            return counts;
+        Set<Ply> moves = Rules.legalMoves(root);
+        if (moves.isEmpty())
+            counts[Squares.PASS] = countRules(RULES.doPly(root, Ply.PASS), depth - 1);
+        for (Ply move : moves)
+            counts[Squares.index(move.getDestination())] = countRules(RULES.doPly(root, move), depth - 1);
+        return counts;
+    }
+
+    /**
+     * @return context of given position, side to move being the active player
+     */
+    public static OthelloContext context(SearchPosition position) {
+        IPlayer black = new PerftPlayer(BLACK);
+        IPlayer white = new PerftPlayer(WHITE);
+        return new OthelloContext(
+                new Clock(),
+                new IBoard[]{position.toBoard()},
+                position.getColorToMove() == BLACK ? new IPlayer[]{black, white} : new IPlayer[]{white, black},
+                new Clock[]{new Clock(), new Clock()});
+    }
+
+    /**
+     * Player of a color, never asked to play
+     */
+    private static final class PerftPlayer
+            implements IPlayer {
+
+        private final int identifier;
+
+        private PerftPlayer(int identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        public int getIdentifier() {
+            return identifier;
+        }
+    }
+
+    /**
+     * Fork-join task counting one subtree, split by moves until {@link #SPLIT_DEPTH}
+     */
+    private final class Subtree
+            extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SearchPosition position;
+        private final int depth;
+
+        private Subtree(SearchPosition position, int depth) {
+            this.position = position;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth < SPLIT_DEPTH)
+                return depth <= 0 ? 1L : perft(position, depth, tables.get());
+
+            long moves = position.legalMoves();
+            if (moves == 0L) {
+                if (position.rivalLegalMoves() == 0L)
+                    return 1L;
+                position.makePass();
+                return new Subtree(position, depth - 1).compute();
+            }
+
+            List<Subtree> children = new ArrayList<Subtree>(bitCount(moves));
+            for (; moves != 0L; moves &= moves - 1) {
+                SearchPosition child = position.copy();
+                child.makeMove(numberOfTrailingZeros(moves));
+                children.add(new Subtree(child, depth - 1));
+            }
+            long count = 0L;
+            for (Subtree child : invokeAll(children))
+                count += child.join();
+            return count;
+        }
+    }
+
+    /**
+     * Always-replace table of subtree counts, owned by a single thread
+     */
+    private static final class Table {
+
+        private final long[] keys;
+        //count << 8 | depth
+        private final long[] values;
+        private final int mask;
+
+        private Table(int sizeInMB) {
+            int entries = sizeInMB == 0
+                    ? 1
+                    : (int) Math.min(1L << 30, Long.highestOneBit(((long) sizeInMB << 20) / ENTRY_BYTES));
+            this.keys = new long[entries];
+            this.values = new long[entries];
+            this.mask = sizeInMB == 0 ? -1 : entries - 1;
+        }
+
+        private int slotOf(long key, int depth) {
+            return (int) (key >>> 32 ^ key) + depth & mask;
+        }
+
+        /**
+         * @return count, -1 if unknown
+         */
+        private long probe(long key, int depth) {
+            if (mask < 0)
+                return -1L;
+            int slot = slotOf(key, depth);
+            long value = values[slot];
+            return keys[slot] == key && (value & 0xFF) == depth && value != 0L
+                    ? value >>> 8
+                    : -1L;
+        }
+
+        private void store(long key, int depth, long count) {
+            if (mask < 0)
+                return;
+            int slot = slotOf(key, depth);
+            keys[slot] = key;
+            values[slot] = count << 8 | depth;
+        }
+    }
+
+    /*=========================================================================
+                       POSITION FORMAT
+    =========================================================================*/
+
+    /**
+     * @param position 64 squares from A1 to H8 then side to move, blanks ignored
+     */
+    public static SearchPosition parse(String position) {
+        String squares = position.replaceAll("\\s", "");
+        if (squares.length() != Squares.SQUARES_COUNT + 1)
+            throw new IllegalArgumentException("Expected 64 squares and side to move : " + position);
+        long black = 0L;
+        long white = 0L;
+        for (int square = 0; square < Squares.SQUARES_COUNT; square++) {
+            switch (Character.toUpperCase(squares.charAt(square))) {
+                case 'X':
+                    black |= 1L << square;
+                    break;
+                case 'O':
+                    white |= 1L << square;
+                    break;
+                case '-':
+                case '.':
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid square " + (square + 1) + " : " + position);
+            }
+        }
+        switch (Character.toUpperCase(squares.charAt(Squares.SQUARES_COUNT))) {
+            case 'X':
+                return new SearchPosition(black, white, BLACK);
+            case 'O':
+                return new SearchPosition(black, white, WHITE);
+            default:
+                throw new IllegalArgumentException("Invalid side to move : " + position);
+        }
+    }
+}
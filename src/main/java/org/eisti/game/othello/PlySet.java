@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import org.eisti.labs.game.Ply;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of plies backed by a mask of destination squares, see {@link Squares}.
+ * <p/>
+ * Membership is a bit test and iteration walks the mask, handing out interned plies
+ * ({@link Squares#ply(int)}) without allocating them. A pass is never a member.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class PlySet
+        extends AbstractSet<Ply> {
+
+    private final long squares;
+
+    /**
+     * @param squares mask of destination squares
+     */
+    public PlySet(long squares) {
+        this.squares = squares;
+    }
+
+    /**
+     * @return mask of destination squares
+     */
+    public final long getMask() {
+        return squares;
+    }
+
+    @Override
+    public final int size() {
+        return Long.bitCount(squares);
+    }
+
+    @Override
+    public final boolean isEmpty() {
+        return squares == 0L;
+    }
+
+    @Override
+    public final boolean contains(Object o) {
+        if (!(o instanceof Ply))
+            return false;
+        Ply ply = (Ply) o;
+        return !ply.isPass() && (squares & Squares.mask(ply.getDestination())) != 0L;
+    }
+
+    @Override
+    public final Iterator<Ply> iterator() {
+        return new Iterator<Ply>() {
+            private long remaining = squares;
+
+            @Override
+            public boolean hasNext() {
+                return remaining != 0L;
+            }
+
+            @Override
+            public Ply next() {
+                if (remaining == 0L)
+                    throw new NoSuchElementException();
+                int square = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                return Squares.ply(square);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Immutable set of plies");
+            }
+        };
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof PlySet)
+            return squares == ((PlySet) o).squares;
+        return super.equals(o);
+    }
+
+    @Override
+    public final int hashCode() {
+        return super.hashCode();
+    }
+}
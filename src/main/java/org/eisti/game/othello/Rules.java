@@ -21,24 +21,20 @@
  */
 package org.eisti.game.othello;
 
-import org.eisti.game.othello.tasks.LegalMoveRegistration;
-import org.eisti.game.othello.tasks.LineTraversor;
-import org.eisti.game.othello.tasks.ReversePawn;
 import org.eisti.labs.game.AbstractRules;
 import org.eisti.labs.game.IBoard;
 import org.eisti.labs.game.IPlayer;
 import org.eisti.labs.game.Ply;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.*;
 
-import static org.eisti.game.othello.tasks.LineTraversor.GridTraversor.values;
 import static org.eisti.labs.util.Validation.require;
 
 /**
+ * Rules hold no state : a single instance can referee any number of concurrent games,
+ * every ply being computed in the calling thread.
+ *
  * @author MACHIZAUD Andréa
  * @version 6/20/11
  */
@@ -46,10 +42,6 @@ public final class Rules
         extends AbstractRules<Board, OthelloContext>
         implements OthelloProperties {
 
-    //Thread pool as many as possible direction checking
-    public static final ExecutorService LINE_CHECKER =
-            Executors.newFixedThreadPool(values().length);
-
     @Override
     public final int getNumberOfPlayer() {
         return NUMBERS_OF_PLAYERS;
@@ -60,16 +52,21 @@ public final class Rules
         return NUMBERS_OF_TYPED_PAWN;
     }
 
+    /**
+     * Framework callers own the returned set, use {@link #legalMoves(OthelloContext)} to avoid the copy
+     *
+     * @return new mutable set of the legal plies of context's active player
+     */
     @Override
     public final Set<Ply> getLegalMoves(OthelloContext context) {
-        return legalMoves(context);
+        return new HashSet<Ply>(legalMoves(context));
     }
 
     @Override
     public final OthelloContext doPly(OthelloContext previousContext, Ply ply) {
         //same game if a player pass
         if (ply.isPass())
-            return previousContext.branchOff(previousContext.getBoard());
+            return previousContext.successor(Squares.PASS, previousContext.getBoard());
 
         Board oldBoard = previousContext.getBoard();
         IPlayer activePlayer = previousContext.getActivePlayer().getFirst();
@@ -77,29 +74,19 @@ public final class Rules
         require(oldBoard.isAt(ply.getDestination(), IBoard.NO_PAWN),
                 "Already a pawn at given ply position : " + ply);
 
+        int playerColor = getColor(activePlayer);
+        int newPawnPosition = Squares.index(ply.getDestination());
+
+        //compute every reversed pawn at once, before the board is shared
+        long reversed = MoveGenerator.flips(
+                oldBoard.getPawns(playerColor),
+                oldBoard.getPawns(playerColor ^ 1),
+                newPawnPosition);
+
         Board subGame = oldBoard.clone();
-        Ply.Coordinate newPawnPosition = ply.getDestination();
-        int playerPawn = getPawnID(activePlayer);
-
-        //put the pawn at correct place
-        subGame.setPawn(newPawnPosition, playerPawn);
-
-        try {
-            //reverse pawn line in parallel
-            for (LineTraversor.GridTraversor direction : LineTraversor.GridTraversor.values())
-                LINE_CHECKER.submit(new ReversePawn(
-                        subGame,
-                        direction,
-                        newPawnPosition,
-                        activePlayer
-                ));
-            //wait for computations to end
-            LINE_CHECKER.awaitTermination(0, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            throw new Error("Unexpected error while computing reverse pawns", e);
-        }
-
-        return previousContext.branchOff(subGame);
+        subGame.putPawn(playerColor, newPawnPosition, reversed);
+
+        return previousContext.successor(newPawnPosition, subGame);
     }
 
 
@@ -115,43 +102,28 @@ public final class Rules
                 : BLACK_PAWN_ID;
     }
 
+    public static int getColor(IPlayer player) {
+        return player.getIdentifier() == OthelloProperties.WHITE
+                ? WHITE
+                : BLACK;
+    }
+
+    /**
+     * @param context game context
+     * @return mask of every legal destination for context's active player, memoized by the context
+     */
+    public static long legalMoveMask(OthelloContext context) {
+        return context.getLegalMoveMask();
+    }
+
+    /**
+     * Set is shared by every caller of the same context : it throws UnsupportedOperationException
+     * on any change, copy it first to edit it, as {@link #getLegalMoves(OthelloContext)} does.
+     *
+     * @param context game context
+     * @return legal plies of context's active player, memoized by the context, unmodifiable
+     */
     public static Set<Ply> legalMoves(OthelloContext context) {
-        IPlayer activePlayer = context.getActivePlayer().getFirst();
-        Board currentBoard = context.getBoard();
-        Set<Ply> legalPlys = new HashSet<Ply>();
-
-        int playerPawn = getPawnID(activePlayer);
-
-        //task container for parallel ops
-        Collection<LegalMoveRegistration> taskList =
-                new ArrayList<LegalMoveRegistration>(values().length);
-
-        for (Ply.Coordinate location : currentBoard)
-            if (currentBoard.isAt(location, playerPawn)) {
-
-                try {
-                    //lookup in every direction, in parallel
-                    for (LineTraversor.GridTraversor direction : LineTraversor.GridTraversor.values())
-                        taskList.add(new LegalMoveRegistration(
-                                currentBoard,
-                                direction,
-                                location,
-                                activePlayer
-                        ));
-                    //fetch computation result and aggregated them in the set
-                    for (Future<Ply> computation : LINE_CHECKER.invokeAll(taskList)) {
-                        Ply result = computation.get();
-                        if (result != null)
-                            legalPlys.add(result);
-                    }
-                } catch (InterruptedException e) {
-                    //Computation can be interrupted by bot worker
-                } catch (ExecutionException e) {
-                    throw new Error("Unexpected error while computing legal moves", e);
-                }
-
-            }
-
-        return legalPlys;
+        return context.getLegalMoves();
     }
 }
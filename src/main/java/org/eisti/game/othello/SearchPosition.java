@@ -0,0 +1,215 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+/**
+ * Mutable position for tree searches.
+ * <p/>
+ * Unlike {@link Rules#doPly(OthelloContext, org.eisti.labs.game.Ply)} which branches off a new context,
+ * moves are played in place and taken back with the undo token returned by
+ * {@link #makeMove(int)} : the reversed pawns mask. Side to move toggles on every make and unmake,
+ * so the previous side is always the rival of the current one.
+ * <p/>
+ * A position is not thread safe, every search thread must work on its own copy.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class SearchPosition
+        implements OthelloProperties {
+
+    /**
+     * Pawns of the side to move
+     */
+    private long player;
+    /**
+     * Pawns of the side waiting
+     */
+    private long rival;
+    /**
+     * Color of the side to move, BLACK or WHITE
+     */
+    private int color;
+    /**
+     * Zobrist key of the position, side to move included
+     */
+    private long key;
+
+    public SearchPosition(long blackPawns, long whitePawns, int colorToMove) {
+        this.color = colorToMove;
+        this.player = colorToMove == WHITE ? whitePawns : blackPawns;
+        this.rival = colorToMove == WHITE ? blackPawns : whitePawns;
+        this.key = Zobrist.positionKey(blackPawns, whitePawns, colorToMove);
+    }
+
+    /**
+     * @return othello start position, black to move
+     */
+    public static SearchPosition initial() {
+        Board board = new Board();
+        return new SearchPosition(board.getBlackPawns(), board.getWhitePawns(), BLACK);
+    }
+
+    /**
+     * @param context game context
+     * @return search position of context's board, from active player point of view
+     */
+    public static SearchPosition of(OthelloContext context) {
+        Board board = context.getBoard();
+        return new SearchPosition(
+                board.getBlackPawns(),
+                board.getWhitePawns(),
+                context.getActiveColor());
+    }
+
+    /**
+     * @return independent copy of this position
+     */
+    public final SearchPosition copy() {
+        return new SearchPosition(getBlackPawns(), getWhitePawns(), color);
+    }
+
+    /*=========================================================================
+                       ACCESSORS
+    =========================================================================*/
+
+    public final long getPlayerPawns() {
+        return player;
+    }
+
+    public final long getRivalPawns() {
+        return rival;
+    }
+
+    public final int getColorToMove() {
+        return color;
+    }
+
+    public final long getBlackPawns() {
+        return color == WHITE ? rival : player;
+    }
+
+    public final long getWhitePawns() {
+        return color == WHITE ? player : rival;
+    }
+
+    public final long getEmptySquares() {
+        return ~(player | rival);
+    }
+
+    /**
+     * @return Zobrist key of the position, see {@link Zobrist#positionKey(long, long, int)}
+     */
+    public final long getKey() {
+        return key;
+    }
+
+    /**
+     * @return mask of side to move legal destinations
+     */
+    public final long legalMoves() {
+        return MoveGenerator.legalMoves(player, rival);
+    }
+
+    /**
+     * @return mask of waiting side legal destinations
+     */
+    public final long rivalLegalMoves() {
+        return MoveGenerator.legalMoves(rival, player);
+    }
+
+    /**
+     * @return a new board holding this position
+     */
+    public final Board toBoard() {
+        Board board = new Board();
+        board.setPawns(getBlackPawns(), getWhitePawns());
+        return board;
+    }
+
+    /*=========================================================================
+                       MAKE / UNMAKE
+    =========================================================================*/
+
+    /**
+     * Play a move in place, square must be a legal destination of the side to move
+     *
+     * @param square square where side to move puts its pawn
+     * @return undo token to give back to {@link #unmakeMove(int, long)}
+     */
+    public final long makeMove(int square) {
+        long reversed = MoveGenerator.flips(player, rival, square);
+        long mover = player | reversed | (1L << square);
+        player = rival & ~reversed;
+        rival = mover;
+        key ^= Zobrist.moveKey(color, square, reversed) ^ Zobrist.SIDE_TO_MOVE;
+        color ^= 1;
+        return reversed;
+    }
+
+    /**
+     * Take back the last move played by {@link #makeMove(int)}
+     *
+     * @param square square of the move
+     * @param undo   token returned when the move was made
+     */
+    public final void unmakeMove(int square, long undo) {
+        long mover = rival & ~(undo | (1L << square));
+        rival = player | undo;
+        player = mover;
+        color ^= 1;
+        key ^= Zobrist.moveKey(color, square, undo) ^ Zobrist.SIDE_TO_MOVE;
+    }
+
+    /**
+     * Side to move passes
+     */
+    public final void makePass() {
+        long mover = player;
+        player = rival;
+        rival = mover;
+        color ^= 1;
+        key ^= Zobrist.SIDE_TO_MOVE;
+    }
+
+    /**
+     * Take back a pass
+     */
+    public final void unmakePass() {
+        makePass();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SearchPosition)) return false;
+        SearchPosition that = (SearchPosition) o;
+        return player == that.player
+                && rival == that.rival
+                && color == that.color;
+    }
+
+    @Override
+    public final int hashCode() {
+        return (int) (key ^ (key >>> 32));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import org.eisti.labs.game.Ply;
+
+import static org.eisti.labs.game.Ply.Coordinate.*;
+
+/**
+ * Square indexing used by every bitboard of the game.
+ * <p/>
+ * A square is identified by <code>row * 8 + column</code> (zero-based indexes),
+ * thus A1 is bit 0, H1 is bit 7 and H8 is bit 63 of a mask.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class Squares
+        implements OthelloProperties {
+
+    /**
+     * Number of squares on an othello board
+     */
+    public static final int SQUARES_COUNT =
+            OTHELLO_DIMENSION.width * OTHELLO_DIMENSION.height;
+
+    /**
+     * Pseudo square index of a pass
+     */
+    public static final int PASS = SQUARES_COUNT;
+
+    //interned coordinates and plies, pass included in plies
+    private static final Ply.Coordinate[] COORDINATES = new Ply.Coordinate[SQUARES_COUNT];
+    private static final Ply[] PLIES = new Ply[SQUARES_COUNT + 1];
+    //orthogonal neighbours of each square : south, north, east, west
+    private static final Ply.Coordinate[][] NEIGHBOURS = new Ply.Coordinate[SQUARES_COUNT][];
+
+    static {
+        for (int square = 0; square < SQUARES_COUNT; square++) {
+            COORDINATES[square] = Coordinate(
+                    columnIndex2Label(square % OTHELLO_DIMENSION.width),
+                    rowIndex2Label(square / OTHELLO_DIMENSION.width));
+            PLIES[square] = new Ply(COORDINATES[square]);
+        }
+        PLIES[PASS] = Ply.PASS;
+
+        for (int square = 0; square < SQUARES_COUNT; square++) {
+            int row = square / OTHELLO_DIMENSION.width;
+            int column = square % OTHELLO_DIMENSION.width;
+            Ply.Coordinate[] neighbours = new Ply.Coordinate[4];
+            int count = 0;
+            if (row < OTHELLO_DIMENSION.height - 1)
+                neighbours[count++] = COORDINATES[square + OTHELLO_DIMENSION.width];
+            if (row > 0)
+                neighbours[count++] = COORDINATES[square - OTHELLO_DIMENSION.width];
+            if (column < OTHELLO_DIMENSION.width - 1)
+                neighbours[count++] = COORDINATES[square + 1];
+            if (column > 0)
+                neighbours[count++] = COORDINATES[square - 1];
+            NEIGHBOURS[square] = new Ply.Coordinate[count];
+            System.arraycopy(neighbours, 0, NEIGHBOURS[square], 0, count);
+        }
+    }
+
+    private Squares() {
+    }
+
+    /**
+     * @param location board coordinate
+     * @return square index of given coordinate
+     */
+    public static int index(Ply.Coordinate location) {
+        return rowLabel2index(location.getRow()) * OTHELLO_DIMENSION.width
+                + columnLabel2index(location.getColumn());
+    }
+
+    /**
+     * @param location board coordinate
+     * @return single bit mask of given coordinate
+     */
+    public static long mask(Ply.Coordinate location) {
+        return 1L << index(location);
+    }
+
+    /**
+     * @param square square index
+     * @return board coordinate of given square, interned
+     */
+    public static Ply.Coordinate coordinate(int square) {
+        return COORDINATES[square];
+    }
+
+    /**
+     * @param square square index or {@link #PASS}
+     * @return ply putting a pawn on given square, interned
+     */
+    public static Ply ply(int square) {
+        return PLIES[square];
+    }
+
+    /**
+     * @param square square index
+     * @return new array of the orthogonal neighbours of given square : south, north, east then west
+     */
+    public static Ply.Coordinate[] neighbours(int square) {
+        return NEIGHBOURS[square].clone();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+/**
+ * The eight symmetries of the board, as bit-level transforms of pawn masks.
+ * <p/>
+ * A transform is a combination of three reflections applied in this order :
+ * {@link #FLIP_DIAGONAL} along A1-H8, then {@link #FLIP_VERTICAL} which swaps rows 1 and 8,
+ * then {@link #FLIP_HORIZONTAL} which swaps columns A and H.
+ * Rotations are clockwise with row 8 on top.
+ * <p/>
+ * Symmetric positions share their canonical form, the one of minimal Zobrist key,
+ * so that a cache keyed by canonical keys holds one entry for up to eight positions.
+ * A move stored in the canonical frame is mapped back through the inverse transform.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class Symmetry {
+
+    public static final int IDENTITY = 0;
+    public static final int FLIP_VERTICAL = 1;
+    public static final int FLIP_HORIZONTAL = 2;
+    public static final int ROTATE_180 = FLIP_VERTICAL | FLIP_HORIZONTAL;
+    public static final int FLIP_DIAGONAL = 4;
+    public static final int ROTATE_90 = FLIP_DIAGONAL | FLIP_VERTICAL;
+    public static final int ROTATE_270 = FLIP_DIAGONAL | FLIP_HORIZONTAL;
+    public static final int FLIP_ANTI_DIAGONAL = FLIP_DIAGONAL | FLIP_VERTICAL | FLIP_HORIZONTAL;
+
+    public static final int TRANSFORMS = 8;
+
+    //a transposition swaps the meaning of the two other reflections
+    private static final int[] INVERSES = {
+            IDENTITY, FLIP_VERTICAL, FLIP_HORIZONTAL, ROTATE_180,
+            FLIP_DIAGONAL, ROTATE_270, ROTATE_90, FLIP_ANTI_DIAGONAL
+    };
+
+    //image of each square by each transform, pass included
+    private static final byte[][] SQUARES = new byte[TRANSFORMS][Squares.SQUARES_COUNT + 1];
+
+    private static final long TRANSFORM_MASK = TRANSFORMS - 1;
+
+    static {
+        for (int transform = 0; transform < TRANSFORMS; transform++) {
+            for (int square = 0; square < Squares.SQUARES_COUNT; square++)
+                SQUARES[transform][square] = (byte) Long.numberOfTrailingZeros(transform(1L << square, transform));
+            SQUARES[transform][Squares.PASS] = (byte) Squares.PASS;
+        }
+    }
+
+    private Symmetry() {
+    }
+
+    /*=========================================================================
+                       MASKS
+    =========================================================================*/
+
+    /**
+     * Swap row 1 and row 8
+     */
+    public static long flipVertical(long x) {
+        return Long.reverseBytes(x);
+    }
+
+    /**
+     * Swap column A and column H
+     */
+    public static long flipHorizontal(long x) {
+        x = ((x >>> 1) & 0x5555555555555555L) | ((x & 0x5555555555555555L) << 1);
+        x = ((x >>> 2) & 0x3333333333333333L) | ((x & 0x3333333333333333L) << 2);
+        x = ((x >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((x & 0x0F0F0F0F0F0F0F0FL) << 4);
+        return x;
+    }
+
+    /**
+     * Flip along A1-H8 diagonal
+     */
+    public static long flipDiagonal(long x) {
+        long t;
+        t = 0x0F0F0F0F00000000L & (x ^ (x << 28));
+        x ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (x ^ (x << 14));
+        x ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (x ^ (x << 7));
+        x ^= t ^ (t >>> 7);
+        return x;
+    }
+
+    /**
+     * Flip along A8-H1 diagonal
+     */
+    public static long flipAntiDiagonal(long x) {
+        return flipHorizontal(flipVertical(flipDiagonal(x)));
+    }
+
+    public static long rotate90(long x) {
+        return flipVertical(flipDiagonal(x));
+    }
+
+    public static long rotate180(long x) {
+        return Long.reverse(x);
+    }
+
+    public static long rotate270(long x) {
+        return flipHorizontal(flipDiagonal(x));
+    }
+
+    /**
+     * @param transform one of the eight transforms of this class
+     */
+    public static long transform(long x, int transform) {
+        if ((transform & FLIP_DIAGONAL) != 0)
+            x = flipDiagonal(x);
+        if ((transform & FLIP_VERTICAL) != 0)
+            x = flipVertical(x);
+        if ((transform & FLIP_HORIZONTAL) != 0)
+            x = flipHorizontal(x);
+        return x;
+    }
+
+    /**
+     * @return image of a square, {@link Squares#PASS} is left unchanged
+     */
+    public static int square(int square, int transform) {
+        return SQUARES[transform][square];
+    }
+
+    /**
+     * @return transform undoing given one
+     */
+    public static int inverse(int transform) {
+        return INVERSES[transform];
+    }
+
+    /*=========================================================================
+                       CANONICAL FORM
+    =========================================================================*/
+
+    /**
+     * Minimal key among the eight images of a position, its 3 low bits replaced by the transform
+     * leading to it : the position once transformed is the canonical one.
+     *
+     * @return canonical key and transform, see {@link #keyOf(long)} and {@link #transformOf(long)}
+     */
+    public static long canonical(long blackPawns, long whitePawns, int colorToMove) {
+        long best = Long.MAX_VALUE;
+        for (int transform = 0; transform < TRANSFORMS; transform++) {
+            long candidate = (Zobrist.positionKey(
+                    transform(blackPawns, transform),
+                    transform(whitePawns, transform),
+                    colorToMove) & ~TRANSFORM_MASK) | transform;
+            if (candidate < best)
+                best = candidate;
+        }
+        return best;
+    }
+
+    public static long canonical(SearchPosition position) {
+        return canonical(position.getBlackPawns(), position.getWhitePawns(), position.getColorToMove());
+    }
+
+    /**
+     * @return key shared by every symmetric position
+     */
+    public static long keyOf(long canonical) {
+        return canonical & ~TRANSFORM_MASK;
+    }
+
+    /**
+     * @return transform from the position to its canonical form
+     */
+    public static int transformOf(long canonical) {
+        return (int) (canonical & TRANSFORM_MASK);
+    }
+}
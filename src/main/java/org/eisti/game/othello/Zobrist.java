@@ -0,0 +1,143 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+/**
+ * Zobrist keys of othello positions.
+ * <p/>
+ * Each (color, square) pair owns a random 64-bit key and a position key is the XOR
+ * of its pawns keys, plus {@link #SIDE_TO_MOVE} when white is to move.
+ * Keys are combined eight squares at a time through per-byte tables,
+ * so hashing a whole mask costs eight lookups.
+ * <p/>
+ * Keys are generated from a fixed seed : they are stable from one run to another
+ * and can be stored on disk.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class Zobrist
+        implements OthelloProperties {
+
+    private static final long SEED = 0x4F7468656C6C6FL;
+
+    /**
+     * Toggled whenever the side to move changes, pass included
+     */
+    public static final long SIDE_TO_MOVE;
+
+    //XOR of keys of every bit of a byte, indexed by (byte rank << 8) | byte value
+    private static final long[] BLACK_KEYS = new long[8 << 8];
+    private static final long[] WHITE_KEYS = new long[8 << 8];
+    //XOR of black and white keys, a reversal swaps one for the other
+    private static final long[] REVERSE_KEYS = new long[8 << 8];
+
+    static {
+        long state = SEED;
+        long[] black = new long[Squares.SQUARES_COUNT];
+        long[] white = new long[Squares.SQUARES_COUNT];
+        for (int square = 0; square < Squares.SQUARES_COUNT; square++) {
+            black[square] = splitMix(state += 0x9E3779B97F4A7C15L);
+            white[square] = splitMix(state += 0x9E3779B97F4A7C15L);
+        }
+        SIDE_TO_MOVE = splitMix(state + 0x9E3779B97F4A7C15L);
+
+        for (int rank = 0; rank < 8; rank++)
+            for (int value = 0; value < 256; value++) {
+                long blackKey = 0L;
+                long whiteKey = 0L;
+                for (int bit = 0; bit < 8; bit++)
+                    if ((value & (1 << bit)) != 0) {
+                        blackKey ^= black[(rank << 3) | bit];
+                        whiteKey ^= white[(rank << 3) | bit];
+                    }
+                BLACK_KEYS[(rank << 8) | value] = blackKey;
+                WHITE_KEYS[(rank << 8) | value] = whiteKey;
+                REVERSE_KEYS[(rank << 8) | value] = blackKey ^ whiteKey;
+            }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * SplitMix64 finalizer, good enough to fill the tables
+     */
+    private static long splitMix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long combine(long[] keys, long mask) {
+        return keys[(int) (mask & 0xFF)]
+                ^ keys[0x100 | (int) ((mask >>> 8) & 0xFF)]
+                ^ keys[0x200 | (int) ((mask >>> 16) & 0xFF)]
+                ^ keys[0x300 | (int) ((mask >>> 24) & 0xFF)]
+                ^ keys[0x400 | (int) ((mask >>> 32) & 0xFF)]
+                ^ keys[0x500 | (int) ((mask >>> 40) & 0xFF)]
+                ^ keys[0x600 | (int) ((mask >>> 48) & 0xFF)]
+                ^ keys[0x700 | (int) (mask >>> 56)];
+    }
+
+    /**
+     * @param blackPawns black pawns mask
+     * @param whitePawns white pawns mask
+     * @return key of pawns placement only
+     */
+    public static long pawnsKey(long blackPawns, long whitePawns) {
+        return combine(BLACK_KEYS, blackPawns) ^ combine(WHITE_KEYS, whitePawns);
+    }
+
+    /**
+     * @param blackPawns  black pawns mask
+     * @param whitePawns  white pawns mask
+     * @param colorToMove BLACK or WHITE
+     * @return key of the full position
+     */
+    public static long positionKey(long blackPawns, long whitePawns, int colorToMove) {
+        return colorToMove == WHITE
+                ? pawnsKey(blackPawns, whitePawns) ^ SIDE_TO_MOVE
+                : pawnsKey(blackPawns, whitePawns);
+    }
+
+    /**
+     * @param color  BLACK or WHITE
+     * @param square square index
+     * @return key of a single pawn
+     */
+    public static long pawnKey(int color, int square) {
+        return (color == WHITE ? WHITE_KEYS : BLACK_KEYS)[((square >>> 3) << 8) | (1 << (square & 7))];
+    }
+
+    /**
+     * Placement key difference of a move, side to move excluded
+     *
+     * @param color    color of the player who moves
+     * @param square   square where the pawn is put
+     * @param reversed reversed rival pawns
+     * @return value to XOR with the key of the position before the move
+     */
+    public static long moveKey(int color, int square, long reversed) {
+        return pawnKey(color, square) ^ combine(REVERSE_KEYS, reversed);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.book;
+
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.Symmetry;
+import org.eisti.game.othello.search.SearchEngine;
+import org.eisti.game.othello.search.SearchResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static java.lang.Long.bitCount;
+
+/**
+ * Opening book, a sorted binary file mapped in memory and queried by binary search.
+ * <p/>
+ * Positions are stored in their canonical form, see {@link Symmetry}, so symmetric openings share their records.
+ * Nothing is parsed nor copied on the heap when opening, pages are loaded by the OS on first probe.
+ * Probes only use absolute reads of the mapped buffer, so a book may be shared between search threads.
+ * <p/>
+ * File format, big endian :
+ * <pre>
+ *  int   magic, see {@link #MAGIC}
+ *  short version
+ *  short deepest ply recorded
+ *  int   number of records
+ *  int   reserved
+ *  records sorted by key then move, {@link #RECORD_SIZE} bytes each :
+ *      long  position key, see {@link SearchPosition#getKey()}
+ *      byte  move square
+ *      byte  reserved
+ *      short mean final disc difference for the side playing the move, in {@link SearchEngine#DISC} units
+ *      int   number of games where the move was played
+ * </pre>
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class OpeningBook {
+
+    static final int MAGIC = 0x4F424F4B; // OBOK
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 16;
+
+    private static final int MOVE_OFFSET = 8;
+    private static final int SCORE_OFFSET = 10;
+    private static final int VISITS_OFFSET = 12;
+
+    //number of pawns on the initial board
+    private static final int INITIAL_PAWNS = 4;
+
+    private final ByteBuffer records;
+    private final int size;
+    private final int plies;
+
+    private OpeningBook(ByteBuffer records, int size, int plies) {
+        this.records = records;
+        this.size = size;
+        this.plies = plies;
+    }
+
+    /**
+     * Map a book file, mapping outlives the file handle
+     */
+    public static OpeningBook open(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            long length = channel.size();
+            if (length < HEADER_SIZE)
+                throw new IOException("Not an opening book : " + file);
+            ByteBuffer book = channel.map(FileChannel.MapMode.READ_ONLY, 0L, length);
+            if (book.getInt(0) != MAGIC)
+                throw new IOException("Not an opening book : " + file);
+            short version = book.getShort(4);
+            if (version != VERSION)
+                throw new IOException("Unsupported opening book version : " + version);
+            int plies = book.getShort(6);
+            int size = book.getInt(8);
+            if (size < 0 || HEADER_SIZE + (long) size * RECORD_SIZE != length)
+                throw new IOException("Truncated opening book : " + file);
+            book.position(HEADER_SIZE);
+            return new OpeningBook(book.slice(), size, plies);
+        } finally {
+            input.close();
+        }
+    }
+
+    /*=========================================================================
+                       QUERIES
+    =========================================================================*/
+
+    /**
+     * @return number of records
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * @return deepest ply recorded, positions further in the game are never in the book
+     */
+    public final int getPlies() {
+        return plies;
+    }
+
+    /**
+     * @return whether position is early enough in the game to be in the book
+     */
+    public final boolean covers(SearchPosition position) {
+        return bitCount(~position.getEmptySquares()) - INITIAL_PAWNS < plies;
+    }
+
+    /**
+     * @return index of first record of given key, -1 if none
+     */
+    public final int find(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getKey(middle) < key)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low < size && getKey(low) == key ? low : -1;
+    }
+
+    /**
+     * Most played legal move of position, best scored between equally played ones
+     *
+     * @return book move with its mean score, null if position is not in the book
+     */
+    public final SearchResult probe(SearchPosition position) {
+        if (!covers(position))
+            return null;
+        long canonical = Symmetry.canonical(position);
+        long key = Symmetry.keyOf(canonical);
+        int first = find(key);
+        if (first < 0)
+            return null;
+
+        int backward = Symmetry.inverse(Symmetry.transformOf(canonical));
+        long moves = position.legalMoves();
+        int best = -1;
+        for (int i = first; i < size && getKey(i) == key; i++) {
+            //guards against key collisions
+            if ((moves & 1L << Symmetry.square(getMove(i), backward)) == 0L)
+                continue;
+            if (best < 0
+                    || getVisits(i) > getVisits(best)
+                    || getVisits(i) == getVisits(best) && getScore(i) > getScore(best))
+                best = i;
+        }
+        return best < 0
+                ? null
+                : new SearchResult(Symmetry.square(getMove(best), backward), getScore(best), 0, 0L, 0L);
+    }
+
+    /*=========================================================================
+                       RECORDS
+    =========================================================================*/
+
+    public final long getKey(int record) {
+        return records.getLong(record * RECORD_SIZE);
+    }
+
+    /**
+     * @return move square in the canonical frame of the record
+     */
+    public final int getMove(int record) {
+        return records.get(record * RECORD_SIZE + MOVE_OFFSET);
+    }
+
+    public final int getScore(int record) {
+        return records.getShort(record * RECORD_SIZE + SCORE_OFFSET);
+    }
+
+    public final int getVisits(int record) {
+        return records.getInt(record * RECORD_SIZE + VISITS_OFFSET);
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.book;
+
+import org.eisti.game.othello.OthelloProperties;
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.Squares;
+import org.eisti.game.othello.Symmetry;
+import org.eisti.game.othello.search.SearchEngine;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.Long.bitCount;
+
+/**
+ * Build an {@link OpeningBook} from recorded games.
+ * <p/>
+ * A game is one line of moves in usual notation, column letter then row digit,
+ * either stuck together or separated by blanks : <code>f5d6c3d3c4f4...</code>.
+ * Passes are implicit, lines starting with <code>#</code> are comments.
+ * Each move of the first plies is scored by the final disc difference of its game,
+ * a game stopping before its end is scored on its last board.
+ * Symmetric positions are merged under their canonical form.
+ * <p/>
+ * Usage : <code>OpeningBookBuilder output-file plies min-games transcript-file...</code>
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class OpeningBookBuilder
+        implements OthelloProperties {
+
+    private final int plies;
+    private final Map<Line, Line> lines = new HashMap<Line, Line>();
+    private int games;
+
+    /**
+     * @param plies number of plies recorded from each game
+     */
+    public OpeningBookBuilder(int plies) {
+        if (plies <= 0 || plies > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid number of plies : " + plies);
+        this.plies = plies;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage : OpeningBookBuilder output-file plies min-games transcript-file...");
+            System.exit(1);
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(Integer.parseInt(args[1]));
+        for (int i = 3; i < args.length; i++) {
+            Reader transcripts = new InputStreamReader(new FileInputStream(args[i]), "US-ASCII");
+            try {
+                builder.addGames(transcripts);
+            } finally {
+                transcripts.close();
+            }
+        }
+        int records = builder.write(new File(args[0]), Integer.parseInt(args[2]));
+        System.out.println(builder.getGames() + " games, " + records + " records");
+    }
+
+    public final int getGames() {
+        return games;
+    }
+
+    /*=========================================================================
+                       GAMES
+    =========================================================================*/
+
+    /**
+     * @param transcripts one game per line
+     */
+    public final void addGames(Reader transcripts) throws IOException {
+        BufferedReader reader = new BufferedReader(transcripts);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.length() == 0 || line.charAt(0) == '#')
+                continue;
+            try {
+                addGame(parse(line));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + " : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param moves squares played, passes excluded
+     */
+    public final void addGame(int[] moves) {
+        int recorded = Math.min(moves.length, plies);
+        long[] canonicals = new long[recorded];
+        int[] colors = new int[recorded];
+
+        SearchPosition position = SearchPosition.initial();
+        for (int ply = 0; ply < moves.length; ply++) {
+            if (position.legalMoves() == 0L)
+                position.makePass();
+            if ((position.legalMoves() & 1L << moves[ply]) == 0L)
+                throw new IllegalArgumentException(
+                        "Illegal move " + Squares.coordinate(moves[ply]) + " at ply " + (ply + 1));
+            if (ply < recorded) {
+                canonicals[ply] = Symmetry.canonical(position);
+                colors[ply] = position.getColorToMove();
+            }
+            position.makeMove(moves[ply]);
+        }
+
+        int blackScore = blackScore(position);
+        for (int ply = 0; ply < recorded; ply++) {
+            Line probe = new Line(Symmetry.keyOf(canonicals[ply]),
+                    Symmetry.square(moves[ply], Symmetry.transformOf(canonicals[ply])));
+            Line line = lines.get(probe);
+            if (line == null)
+                lines.put(probe, line = probe);
+            line.visits++;
+            line.scoreSum += colors[ply] == BLACK ? blackScore : -blackScore;
+        }
+        games++;
+    }
+
+    /**
+     * @return squares of transcript's moves
+     */
+    public static int[] parse(String transcript) {
+        int[] moves = new int[Squares.SQUARES_COUNT];
+        int count = 0;
+        for (int i = 0; i < transcript.length(); i++) {
+            char column = Character.toLowerCase(transcript.charAt(i));
+            if (Character.isWhitespace(column))
+                continue;
+            char row = i + 1 < transcript.length() ? transcript.charAt(i + 1) : ' ';
+            if (column < 'a' || column > 'h' || row < '1' || row > '8')
+                throw new IllegalArgumentException("Invalid move at column " + (i + 1) + " : " + transcript);
+            if (count == moves.length)
+                throw new IllegalArgumentException("Too many moves : " + transcript);
+            moves[count++] = (row - '1') * OTHELLO_DIMENSION.width + (column - 'a');
+            i++;
+        }
+        int[] result = new int[count];
+        System.arraycopy(moves, 0, result, 0, count);
+        return result;
+    }
+
+    //final disc difference for black, empty squares go to the winner of a finished game
+    private static int blackScore(SearchPosition position) {
+        int difference = bitCount(position.getBlackPawns()) - bitCount(position.getWhitePawns());
+        boolean over = position.legalMoves() == 0L && position.rivalLegalMoves() == 0L;
+        if (over && difference != 0) {
+            int empties = bitCount(position.getEmptySquares());
+            difference += difference > 0 ? empties : -empties;
+        }
+        return difference;
+    }
+
+    /*=========================================================================
+                       OUTPUT
+    =========================================================================*/
+
+    /**
+     * @param minGames moves played in fewer games are left out
+     * @return number of records written
+     */
+    public final int write(File destination, int minGames) throws IOException {
+        List<Line> records = new ArrayList<Line>(lines.size());
+        for (Line line : lines.values())
+            if (line.visits >= minGames)
+                records.add(line);
+        Collections.sort(records);
+
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(destination)));
+        try {
+            output.writeInt(OpeningBook.MAGIC);
+            output.writeShort(OpeningBook.VERSION);
+            output.writeShort(plies);
+            output.writeInt(records.size());
+            output.writeInt(0);
+            for (Line line : records) {
+                output.writeLong(line.key);
+                output.writeByte(line.move);
+                output.writeByte(0);
+                output.writeShort(line.meanScore());
+                output.writeInt(line.visits);
+            }
+        } finally {
+            output.close();
+        }
+        return records.size();
+    }
+
+    /**
+     * A move played from a position, with statistics of the games where it was played
+     */
+    private static final class Line
+            implements Comparable<Line> {
+
+        private final long key;
+        private final int move;
+        private int visits;
+        private long scoreSum;
+
+        private Line(long key, int move) {
+            this.key = key;
+            this.move = move;
+        }
+
+        private int meanScore() {
+            return (int) Math.round((double) scoreSum * SearchEngine.DISC / visits);
+        }
+
+        @Override
+        public int compareTo(Line other) {
+            if (key != other.key)
+                return key < other.key ? -1 : 1;
+            return move - other.move;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Line)) return false;
+            Line line = (Line) o;
+            return key == line.key && move == line.move;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (key ^ key >>> 32) * 31 + move;
+        }
+    }
+}
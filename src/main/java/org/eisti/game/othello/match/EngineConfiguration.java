@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.match;
+
+import org.eisti.game.othello.search.Evaluator;
+import org.eisti.game.othello.search.HeuristicEvaluator;
+import org.eisti.game.othello.search.PatternEvaluator;
+import org.eisti.game.othello.search.SearchEngine;
+
+/**
+ * Search settings of a {@link Tournament} contestant, built from a specification as
+ * <code>name:depth=6,nodes=200000,endgame=14,eval=pattern,table=4</code>.
+ * <p/>
+ * Every setting is optional :
+ * <ul>
+ * <li><code>depth</code>, maximum search depth, {@link #DEFAULT_DEPTH} by default ;</li>
+ * <li><code>nodes</code>, node budget of a move, unlimited by default ;</li>
+ * <li><code>endgame</code>, empty squares from which the game is solved, see {@link SearchEngine#DEFAULT_ENDGAME_EMPTIES} ;</li>
+ * <li><code>eval</code>, <code>pattern</code> or <code>heuristic</code>, pattern by default ;</li>
+ * <li><code>table</code>, transposition table size in MB, {@link #DEFAULT_TABLE_SIZE_IN_MB} by default.</li>
+ * </ul>
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class EngineConfiguration {
+
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_TABLE_SIZE_IN_MB = 4;
+
+    public static final String PATTERN_EVALUATOR = "pattern";
+    public static final String HEURISTIC_EVALUATOR = "heuristic";
+
+    private final String name;
+    private final int depth;
+    private final long nodeLimit;
+    private final int endgameEmpties;
+    private final String evaluator;
+    private final int tableSizeInMB;
+
+    public EngineConfiguration(String name, int depth, long nodeLimit, int endgameEmpties,
+                               String evaluator, int tableSizeInMB) {
+        if (!evaluator.equals(PATTERN_EVALUATOR) && !evaluator.equals(HEURISTIC_EVALUATOR))
+            throw new IllegalArgumentException("Unknown evaluator : " + evaluator);
+        this.name = name;
+        this.depth = depth;
+        this.nodeLimit = nodeLimit;
+        this.endgameEmpties = endgameEmpties;
+        this.evaluator = evaluator;
+        this.tableSizeInMB = tableSizeInMB;
+    }
+
+    /**
+     * @param specification see class documentation
+     */
+    public static EngineConfiguration parse(String specification) {
+        int separator = specification.indexOf(':');
+        String name = separator < 0 ? specification : specification.substring(0, separator);
+        if (name.isEmpty() || name.indexOf(',') >= 0)
+            throw new IllegalArgumentException("Invalid engine name : " + specification);
+
+        int depth = DEFAULT_DEPTH;
+        long nodeLimit = Long.MAX_VALUE;
+        int endgameEmpties = SearchEngine.DEFAULT_ENDGAME_EMPTIES;
+        String evaluator = PATTERN_EVALUATOR;
+        int tableSizeInMB = DEFAULT_TABLE_SIZE_IN_MB;
+        if (separator >= 0) {
+            for (String setting : specification.substring(separator + 1).split(",")) {
+                int equals = setting.indexOf('=');
+                if (equals < 0)
+                    throw new IllegalArgumentException("Invalid engine setting : " + setting);
+                String key = setting.substring(0, equals).trim();
+                String value = setting.substring(equals + 1).trim();
+                if (key.equals("depth"))
+                    depth = Integer.parseInt(value);
+                else if (key.equals("nodes"))
+                    nodeLimit = Long.parseLong(value);
+                else if (key.equals("endgame"))
+                    endgameEmpties = Integer.parseInt(value);
+                else if (key.equals("eval"))
+                    evaluator = value;
+                else if (key.equals("table"))
+                    tableSizeInMB = Integer.parseInt(value);
+                else
+                    throw new IllegalArgumentException("Unknown engine setting : " + key);
+            }
+        }
+        return new EngineConfiguration(name, depth, nodeLimit, endgameEmpties, evaluator, tableSizeInMB);
+    }
+
+    /**
+     * An engine is not thread safe : each thread builds its own
+     *
+     * @return new engine with these settings
+     */
+    public final SearchEngine newEngine() {
+        SearchEngine engine = new SearchEngine(tableSizeInMB);
+        engine.setMaxDepth(depth);
+        engine.setNodeLimit(nodeLimit);
+        engine.setEndgameEmpties(endgameEmpties);
+        engine.setEvaluator(newEvaluator());
+        return engine;
+    }
+
+    private Evaluator newEvaluator() {
+        return evaluator.equals(HEURISTIC_EVALUATOR)
+                ? new HeuristicEvaluator()
+                : new PatternEvaluator();
+    }
+
+    public final String getName() {
+        return name;
+    }
+
+    @Override
+    public final String toString() {
+        return name + ":depth=" + depth
+                + (nodeLimit == Long.MAX_VALUE ? "" : ",nodes=" + nodeLimit)
+                + ",endgame=" + endgameEmpties
+                + ",eval=" + evaluator
+                + ",table=" + tableSizeInMB;
+    }
+}
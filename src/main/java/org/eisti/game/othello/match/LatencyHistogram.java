@@ -0,0 +1,100 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.match;
+
+/**
+ * Log-linear histogram of durations in nanoseconds : every power of two is split
+ * in {@link #SUB_BUCKETS} buckets, a recorded value is known within 1/{@link #SUB_BUCKETS}.
+ * <p/>
+ * Not thread safe : each thread records in its own histogram, merged once done.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 4;
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    //values under SUB_BUCKETS have their own bucket, then SUB_BUCKETS buckets per power of two
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    /**
+     * @param nanos duration, negative ones count as 0
+     */
+    public final void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts[bucket(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    public final void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    public final long getCount() {
+        return total;
+    }
+
+    public final long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return highest value of the bucket reaching given percentile, 0 if nothing was recorded
+     */
+    public final long getPercentile(double percentile) {
+        if (total == 0L)
+            return 0L;
+        long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(max, highestValue(i));
+        }
+        return max;
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> exponent) & (SUB_BUCKETS - 1);
+        return (exponent + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << exponent;
+        return lowest + (1L << exponent) - 1;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.match;
+
+import org.eisti.game.othello.OthelloContext;
+import org.eisti.game.othello.OthelloProperties;
+import org.eisti.game.othello.Rules;
+import org.eisti.labs.game.GameState;
+import org.eisti.labs.game.Ply;
+
+/**
+ * One game played ply by ply, see {@link MatchScheduler}.
+ * <p/>
+ * A match is played by one thread at a time, the scheduler hand-off orders its plies.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class Match
+        implements OthelloProperties {
+
+    //stateless, shared by every match
+    private static final Rules RULES = new Rules();
+
+    private final MatchPlayer blackPlayer;
+    private final MatchPlayer whitePlayer;
+    private OthelloContext context;
+    private int plies;
+
+    /**
+     * @param start       first context of the game
+     * @param blackPlayer player of black pawns
+     * @param whitePlayer player of white pawns
+     */
+    public Match(OthelloContext start, MatchPlayer blackPlayer, MatchPlayer whitePlayer) {
+        this.context = start;
+        this.blackPlayer = blackPlayer;
+        this.whitePlayer = whitePlayer;
+    }
+
+    /**
+     * Play a ply of active player, a pass if he cannot move
+     *
+     * @return if game is over
+     */
+    public final boolean playPly() {
+        Ply ply;
+        if (context.getLegalMoveMask() == 0L)
+            ply = Ply.PASS;
+        else
+            ply = (context.getActiveColor() == BLACK ? blackPlayer : whitePlayer).play(context);
+        context = RULES.doPly(context, ply);
+        plies++;
+        return isOver();
+    }
+
+    public final boolean isOver() {
+        return context.getState() != GameState.RUNNING;
+    }
+
+    /**
+     * @return current context, last one once game is over
+     */
+    public final OthelloContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return number of plies played, passes included
+     */
+    public final int getPlies() {
+        return plies;
+    }
+
+    /**
+     * @return black pawns minus white pawns on current board
+     */
+    public final int getDiscDifference() {
+        return Long.bitCount(context.getBoard().getBlackPawns())
+                - Long.bitCount(context.getBoard().getWhitePawns());
+    }
+}
@@ -19,30 +19,27 @@
  * <http://www.gnu.org/licenses/gpl-3.0.html>.
  * #L%
  */
-package org.eisti.game.othello.tasks;
+package org.eisti.game.othello.match;
 
 import org.eisti.game.othello.OthelloContext;
-import org.eisti.game.othello.Rules;
-
-import java.util.concurrent.Callable;
+import org.eisti.labs.game.Ply;
 
 /**
+ * Move choice of a player in a scheduled match.
+ * <p/>
+ * A player may be called from several threads, one game at a time :
+ * it must be thread safe if it takes part in more than one game.
+ *
  * @author MACHIZAUD Andréa
- * @version 7/2/11
+ * @version 10/18/26
  */
-public final class PlayerHasRemainingPlies
-    implements Callable<Boolean> {
-
-    private final OthelloContext _context;
-
-    public PlayerHasRemainingPlies(
-            OthelloContext fakeContext
-    ) {
-        this._context = fakeContext;
-    }
+public interface MatchPlayer {
 
-    @Override
-    public final Boolean call() throws Exception {
-        return Rules.legalMoves(_context).size() > 0;
-    }
+    /**
+     * Only called when active player has a legal move
+     *
+     * @param context game context, active player to move
+     * @return one of context's legal plies
+     */
+    Ply play(OthelloContext context);
 }
@@ -0,0 +1,229 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.match;
+
+import org.eisti.game.othello.ExecutionStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays many independent games on a few threads.
+ * <p/>
+ * At most a given number of games are active at once, the others wait for a slot.
+ * Active games share one queue : a worker takes a game, plays one ply and puts it back,
+ * so that every active game progresses at the same pace whatever the number of threads.
+ * Queue hand-off orders the plies of a game played by different workers.
+ * <p/>
+ * Workers run on the given {@link ExecutionStrategy}, one per unit of parallelism.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class MatchScheduler {
+
+    //queued once every game is over, or on failure, to stop the workers
+    private static final Match END = new Match(null, null, null);
+
+    private final ExecutionStrategy strategy;
+    private final int maxActiveGames;
+    private final Queue<Match> pending = new ConcurrentLinkedQueue<Match>();
+
+    /**
+     * @param strategy       threads games are played on, not closed by the scheduler
+     * @param maxActiveGames number of games in progress at once
+     */
+    public MatchScheduler(ExecutionStrategy strategy, int maxActiveGames) {
+        if (maxActiveGames <= 0)
+            throw new IllegalArgumentException("At least one active game is needed : " + maxActiveGames);
+        this.strategy = strategy;
+        this.maxActiveGames = maxActiveGames;
+    }
+
+    /**
+     * @param match game played by next {@link #run()}
+     */
+    public final void schedule(Match match) {
+        pending.add(match);
+    }
+
+    /**
+     * Play every scheduled game to its end
+     *
+     * @return throughput and ply latencies of this run
+     */
+    public final Report run() throws InterruptedException {
+        //games scheduled from now on wait for next run
+        final Queue<Match> waiting = new ConcurrentLinkedQueue<Match>();
+        Match scheduled;
+        while ((scheduled = pending.poll()) != null)
+            waiting.add(scheduled);
+        final AtomicInteger remaining = new AtomicInteger(waiting.size());
+        final BlockingQueue<Match> active = new LinkedBlockingQueue<Match>();
+        for (int i = 0; i < maxActiveGames && !waiting.isEmpty(); i++)
+            active.add(waiting.poll());
+        int workers = Math.min(strategy.getParallelism(), active.size());
+
+        List<Callable<Worker>> tasks = new ArrayList<Callable<Worker>>(workers);
+        for (int i = 0; i < workers; i++)
+            tasks.add(new Callable<Worker>() {
+                @Override
+                public Worker call() throws InterruptedException {
+                    Worker worker = new Worker();
+                    worker.play(active, waiting, remaining);
+                    return worker;
+                }
+            });
+
+        long start = System.nanoTime();
+        List<Worker> done;
+        try {
+            //workers wait for each other's games, they must not run one after another
+            done = strategy.invokeAllParallel(tasks);
+        } catch (ExecutionException e) {
+            throw new Error("Unexpected error while playing scheduled games", e.getCause());
+        }
+        long elapsed = System.nanoTime() - start;
+
+        LatencyHistogram plyLatency = new LatencyHistogram();
+        int games = 0;
+        for (Worker worker : done) {
+            plyLatency.merge(worker.plyLatency);
+            games += worker.games;
+        }
+        return new Report(games, elapsed, plyLatency);
+    }
+
+    /**
+     * Plays plies of active games until every game is over,
+     * each finished game frees its slot to a waiting one
+     */
+    private final class Worker {
+        private final LatencyHistogram plyLatency = new LatencyHistogram();
+        private int games;
+
+        private void play(BlockingQueue<Match> active, Queue<Match> waiting, AtomicInteger remaining)
+                throws InterruptedException {
+            while (true) {
+                //waits while every active game is being played by other workers
+                Match match = active.take();
+                if (match == END) {
+                    //wakes up next worker
+                    active.add(END);
+                    return;
+                }
+                if (remaining.get() == 0)
+                    //run failed, games left are dropped
+                    continue;
+                long start = System.nanoTime();
+                boolean over;
+                try {
+                    over = match.playPly();
+                } catch (Throwable e) {
+                    //other workers stop too, the failure ends the run
+                    remaining.set(0);
+                    active.add(END);
+                    throw e;
+                }
+                plyLatency.record(System.nanoTime() - start);
+                if (over) {
+                    games++;
+                    if (remaining.decrementAndGet() == 0) {
+                        active.add(END);
+                        return;
+                    }
+                    match = waiting.poll();
+                    if (match == null)
+                        continue;
+                }
+                active.add(match);
+            }
+        }
+    }
+
+    /*=========================================================================
+                       REPORT
+    =========================================================================*/
+
+    /**
+     * Outcome of a {@link #run()}
+     */
+    public static final class Report {
+        private final int games;
+        private final long elapsedNanos;
+        private final LatencyHistogram plyLatency;
+
+        Report(int games, long elapsedNanos, LatencyHistogram plyLatency) {
+            this.games = games;
+            this.elapsedNanos = elapsedNanos;
+            this.plyLatency = plyLatency;
+        }
+
+        public final int getGames() {
+            return games;
+        }
+
+        /**
+         * @return number of plies played, passes included
+         */
+        public final long getPlies() {
+            return plyLatency.getCount();
+        }
+
+        public final long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public final double getGamesPerSecond() {
+            return elapsedNanos == 0L ? 0.0 : games * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return duration of a ply, player's choice included
+         */
+        public final LatencyHistogram getPlyLatency() {
+            return plyLatency;
+        }
+
+        /**
+         * @return 99th percentile of ply duration, in nanoseconds
+         */
+        public final long getP99PlyLatency() {
+            return plyLatency.getPercentile(99.0);
+        }
+
+        @Override
+        public final String toString() {
+            return String.format("%d games, %d plies in %.3f s : %.1f games/s, ply latency p50 %d us, p99 %d us, max %d us",
+                    games, getPlies(), elapsedNanos / 1e9, getGamesPerSecond(),
+                    plyLatency.getPercentile(50.0) / 1000L, getP99PlyLatency() / 1000L,
+                    plyLatency.getMax() / 1000L);
+        }
+    }
+}
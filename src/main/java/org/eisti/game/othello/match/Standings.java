@@ -0,0 +1,154 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.match;
+
+import java.util.Locale;
+
+/**
+ * Wins, draws and losses between every pair of {@link Tournament} contestants,
+ * with Elo differences and their confidence intervals.
+ * <p/>
+ * Elo difference follows from score rate <code>s</code> as <code>-400 log10(1 / s - 1)</code>.
+ * Its interval maps the normal interval of the mean game score, whose variance is
+ * taken from the games themselves, draws included.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class Standings {
+
+    /**
+     * Quantile of a two-sided 95% normal interval
+     */
+    public static final double Z_95 = 1.959964;
+
+    private static final int WIN = 0;
+    private static final int DRAW = 1;
+    private static final int LOSS = 2;
+
+    private final String[] names;
+    //[player][opponent][WIN, DRAW or LOSS], player's point of view
+    private final long[][][] results;
+
+    public Standings(String[] names) {
+        this.names = names.clone();
+        this.results = new long[names.length][names.length][3];
+    }
+
+    /**
+     * @param black           black contestant
+     * @param white           white contestant
+     * @param blackDifference black discs minus white ones at the end of the game
+     */
+    public final void record(int black, int white, int blackDifference) {
+        int outcome = blackDifference > 0 ? WIN : blackDifference < 0 ? LOSS : DRAW;
+        results[black][white][outcome]++;
+        results[white][black][LOSS - outcome]++;
+    }
+
+    public final void merge(Standings other) {
+        for (int player = 0; player < names.length; player++)
+            for (int opponent = 0; opponent < names.length; opponent++)
+                for (int outcome = WIN; outcome <= LOSS; outcome++)
+                    results[player][opponent][outcome] += other.results[player][opponent][outcome];
+    }
+
+    /*=========================================================================
+                       ELO
+    =========================================================================*/
+
+    /**
+     * @return Elo difference of player over opponent, its lower and upper 95% bounds
+     */
+    public final double[] getElo(int player, int opponent) {
+        long[] outcomes = results[player][opponent];
+        return elo(outcomes[WIN], outcomes[DRAW], outcomes[LOSS]);
+    }
+
+    /**
+     * @return Elo difference of player over the average of the others, its lower and upper 95% bounds
+     */
+    public final double[] getEloAgainstField(int player) {
+        long wins = 0L, draws = 0L, losses = 0L;
+        for (int opponent = 0; opponent < names.length; opponent++) {
+            wins += results[player][opponent][WIN];
+            draws += results[player][opponent][DRAW];
+            losses += results[player][opponent][LOSS];
+        }
+        return elo(wins, draws, losses);
+    }
+
+    /**
+     * @return Elo difference, its lower and upper bounds, NaN without game
+     */
+    static double[] elo(long wins, long draws, long losses) {
+        long games = wins + draws + losses;
+        if (games == 0L)
+            return new double[]{Double.NaN, Double.NaN, Double.NaN};
+        double score = (wins + 0.5 * draws) / games;
+        double variance = (wins * (1.0 - score) * (1.0 - score)
+                + draws * (0.5 - score) * (0.5 - score)
+                + losses * score * score) / games;
+        double margin = Z_95 * Math.sqrt(variance / games);
+        return new double[]{
+                elo(score),
+                elo(Math.max(0.0, score - margin)),
+                elo(Math.min(1.0, score + margin))};
+    }
+
+    //infinite for a score rate of 0 or 1
+    static double elo(double score) {
+        return -400.0 * Math.log10(1.0 / score - 1.0);
+    }
+
+    public final long getGames(int player, int opponent) {
+        long[] outcomes = results[player][opponent];
+        return outcomes[WIN] + outcomes[DRAW] + outcomes[LOSS];
+    }
+
+    /**
+     * One line per contestant against the field, then one per pair
+     */
+    @Override
+    public final String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int player = 0; player < names.length; player++) {
+            long games = 0L;
+            for (int opponent = 0; opponent < names.length; opponent++)
+                games += getGames(player, opponent);
+            appendLine(sb, names[player] + " vs field", games, getEloAgainstField(player));
+        }
+        for (int player = 0; player < names.length; player++)
+            for (int opponent = player + 1; opponent < names.length; opponent++) {
+                long[] outcomes = results[player][opponent];
+                appendLine(sb, names[player] + " vs " + names[opponent]
+                        + String.format(" (+%d =%d -%d)", outcomes[WIN], outcomes[DRAW], outcomes[LOSS]),
+                        getGames(player, opponent), getElo(player, opponent));
+            }
+        return sb.toString();
+    }
+
+    private static void appendLine(StringBuilder sb, String label, long games, double[] elo) {
+        sb.append(String.format(Locale.ROOT, "%s : %d games, Elo %+.1f [%+.1f, %+.1f]%n",
+                label, games, elo[0], elo[1], elo[2]));
+    }
+}
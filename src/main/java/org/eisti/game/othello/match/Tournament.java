@@ -0,0 +1,350 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.match;
+
+import org.eisti.game.othello.ExecutionStrategy;
+import org.eisti.game.othello.OthelloProperties;
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.book.OpeningBookBuilder;
+import org.eisti.game.othello.search.SearchEngine;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+
+/**
+ * Headless round-robin self-play between engine configurations.
+ * <p/>
+ * Games are played on {@link SearchPosition}s, without framework context nor match loop.
+ * Each game starts from an opening, played twice with colors swapped, pairs and openings
+ * taking turns so that any prefix of the games is balanced. Every worker thread owns one
+ * engine per configuration, reset before each game, see {@link SearchEngine#reset()} :
+ * with node or depth limits only, a game result does not depend on the thread that played it.
+ * <p/>
+ * Results are streamed as CSV, one line per game as soon as it ends, see {@link #CSV_HEADER}.
+ * <p/>
+ * Usage : <code>Tournament output.csv games openings engine...</code>, where openings are
+ * <code>random:count:plies</code> or <code>file:transcripts:plies</code> and engines follow
+ * {@link EngineConfiguration#parse(String)}. Games run on {@link ExecutionStrategy#PROPERTY}
+ * if set, on every core otherwise.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class Tournament
+        implements OthelloProperties {
+
+    public static final String CSV_HEADER = "game,black,white,opening,black_discs,white_discs,black_difference";
+
+    private static final long SEED = 0x5EEDL;
+    //lines written between two flushes of the output
+    private static final int FLUSH_PERIOD = 1024;
+
+    private final EngineConfiguration[] engines;
+    private final int[][] pairs;
+    private final List<int[]> openings;
+    private final long games;
+
+    /**
+     * @param engines  contestants, at least two
+     * @param openings move sequences games start from, played by both colors
+     * @param games    number of games to play
+     * @throws IllegalArgumentException if an opening is not a legal sequence
+     */
+    public Tournament(List<EngineConfiguration> engines, List<int[]> openings, long games) {
+        if (engines.size() < 2)
+            throw new IllegalArgumentException("At least two engines are needed : " + engines.size());
+        if (openings.isEmpty())
+            throw new IllegalArgumentException("At least one opening is needed");
+        for (int[] opening : openings)
+            startPosition(opening);
+        this.engines = engines.toArray(new EngineConfiguration[engines.size()]);
+        this.openings = new ArrayList<int[]>(openings);
+        this.games = games;
+
+        int count = this.engines.length;
+        this.pairs = new int[count * (count - 1) / 2][];
+        for (int first = 0, pair = 0; first < count; first++)
+            for (int second = first + 1; second < count; second++)
+                pairs[pair++] = new int[]{first, second};
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 5) {
+            System.err.println("Usage : Tournament output.csv games (random:count:plies | file:transcripts:plies) engine engine...");
+            System.exit(1);
+        }
+        File output = new File(args[0]);
+        long games = Long.parseLong(args[1]);
+        List<int[]> openings = openings(args[2]);
+        List<EngineConfiguration> engines = new ArrayList<EngineConfiguration>();
+        for (int i = 3; i < args.length; i++)
+            engines.add(EngineConfiguration.parse(args[i]));
+
+        Tournament tournament = new Tournament(engines, openings, games);
+        ExecutionStrategy strategy = System.getProperty(ExecutionStrategy.PROPERTY) != null
+                ? ExecutionStrategy.configured()
+                : ExecutionStrategy.forkJoin(Runtime.getRuntime().availableProcessors());
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), "UTF-8"));
+        long start = System.nanoTime();
+        Standings standings;
+        try {
+            standings = tournament.run(strategy, out);
+        } finally {
+            out.close();
+            strategy.close();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%d games in %.1f s (%.1f games/s) on %s",
+                games, seconds, games / seconds, strategy));
+        for (EngineConfiguration engine : engines)
+            System.out.println(engine);
+        System.out.print(standings);
+    }
+
+    /*=========================================================================
+                       OPENINGS
+    =========================================================================*/
+
+    /**
+     * @param specification <code>random:count:plies</code> or <code>file:transcripts:plies</code>
+     */
+    static List<int[]> openings(String specification) throws IOException {
+        String[] parts = specification.split(":");
+        if (parts.length != 3)
+            throw new IllegalArgumentException("Invalid openings : " + specification);
+        int plies = Integer.parseInt(parts[2]);
+        if (parts[0].equals("random"))
+            return randomOpenings(Integer.parseInt(parts[1]), plies, new Random(SEED));
+        if (parts[0].equals("file")) {
+            Reader transcripts = new InputStreamReader(new FileInputStream(parts[1]), "UTF-8");
+            try {
+                return readOpenings(transcripts, plies);
+            } finally {
+                transcripts.close();
+            }
+        }
+        throw new IllegalArgumentException("Invalid openings : " + specification);
+    }
+
+    /**
+     * @return distinct random move sequences, passes excluded
+     */
+    public static List<int[]> randomOpenings(int count, int plies, Random random) {
+        List<int[]> openings = new ArrayList<int[]>(count);
+        Set<Long> seen = new HashSet<Long>();
+        //few distinct openings exist in the very first plies
+        for (int attempt = 0; openings.size() < count && attempt < 100 * count; attempt++) {
+            SearchPosition position = SearchPosition.initial();
+            int[] opening = new int[plies];
+            int played = 0;
+            for (; played < plies; played++) {
+                long moves = position.legalMoves();
+                if (moves == 0L)
+                    break;
+                for (int skip = random.nextInt(bitCount(moves)); skip-- > 0; )
+                    moves &= moves - 1;
+                opening[played] = numberOfTrailingZeros(moves);
+                position.makeMove(opening[played]);
+            }
+            if (played == plies && seen.add(position.getKey()))
+                openings.add(opening);
+        }
+        return openings;
+    }
+
+    /**
+     * Book-based openings : first plies of game transcripts, one per line, duplicates removed.
+     * Blank lines and lines starting with <code>#</code> are skipped, as by {@link OpeningBookBuilder#addGames(Reader)}.
+     *
+     * @throws IOException if a transcript is invalid, with its line number
+     * @see OpeningBookBuilder#parse(String)
+     */
+    public static List<int[]> readOpenings(Reader transcripts, int plies) throws IOException {
+        List<int[]> openings = new ArrayList<int[]>();
+        Set<Long> seen = new HashSet<Long>();
+        BufferedReader lines = new BufferedReader(transcripts);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.length() == 0 || line.charAt(0) == '#')
+                continue;
+            try {
+                int[] moves = OpeningBookBuilder.parse(line);
+                if (moves.length < plies)
+                    continue;
+                int[] opening = Arrays.copyOf(moves, plies);
+                if (seen.add(startPosition(opening).getKey()))
+                    openings.add(opening);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + " : " + e.getMessage());
+            }
+        }
+        return openings;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a move is not legal
+     */
+    private static SearchPosition startPosition(int[] opening) {
+        SearchPosition position = SearchPosition.initial();
+        for (int move : opening) {
+            if (position.legalMoves() == 0L)
+                position.makePass();
+            if ((position.legalMoves() & (1L << move)) == 0L)
+                throw new IllegalArgumentException("Illegal opening move " + move + " in " + Arrays.toString(opening));
+            position.makeMove(move);
+        }
+        return position;
+    }
+
+    /*=========================================================================
+                       GAMES
+    =========================================================================*/
+
+    /**
+     * @param strategy threads games are played on, one worker per unit of parallelism
+     * @param out      CSV destination, written by one thread at a time
+     * @return results of every game
+     */
+    public final Standings run(ExecutionStrategy strategy, final Writer out)
+            throws IOException, InterruptedException {
+        String[] names = new String[engines.length];
+        for (int i = 0; i < engines.length; i++)
+            names[i] = engines[i].getName();
+        out.write(CSV_HEADER);
+        out.write('\n');
+
+        final AtomicLong nextGame = new AtomicLong();
+        int workers = (int) Math.max(1L, Math.min(strategy.getParallelism(), games));
+        List<Callable<Standings>> tasks = new ArrayList<Callable<Standings>>(workers);
+        for (int i = 0; i < workers; i++)
+            tasks.add(new Callable<Standings>() {
+                @Override
+                public Standings call() throws IOException {
+                    return play(nextGame, out);
+                }
+            });
+
+        Standings standings = new Standings(names);
+        try {
+            //workers share the game counter, they must not run one after another
+            for (Standings done : strategy.invokeAllParallel(tasks))
+                standings.merge(done);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new Error("Unexpected error while playing tournament games", e.getCause());
+        }
+        out.flush();
+        return standings;
+    }
+
+    /**
+     * Worker loop : take next game number until every game is played
+     */
+    private Standings play(AtomicLong nextGame, Writer out) throws IOException {
+        String[] names = new String[engines.length];
+        SearchEngine[] players = new SearchEngine[engines.length];
+        for (int i = 0; i < engines.length; i++) {
+            names[i] = engines[i].getName();
+            players[i] = engines[i].newEngine();
+        }
+        Standings standings = new Standings(names);
+        StringBuilder line = new StringBuilder();
+
+        long game;
+        while ((game = nextGame.getAndIncrement()) < games) {
+            //a pair plays both colors of an opening in a row, pairs take turns on each opening
+            long round = game >>> 1;
+            int[] pair = pairs[(int) (round % pairs.length)];
+            int opening = (int) (round / pairs.length % openings.size());
+            boolean swapped = (game & 1L) != 0L;
+            int black = swapped ? pair[1] : pair[0];
+            int white = swapped ? pair[0] : pair[1];
+
+            SearchPosition end = play(startPosition(openings.get(opening)), players[black], players[white]);
+            int blackDiscs = bitCount(end.getBlackPawns());
+            int whiteDiscs = bitCount(end.getWhitePawns());
+            int difference = blackDifference(end);
+            standings.record(black, white, difference);
+
+            line.setLength(0);
+            line.append(game).append(',').append(names[black]).append(',').append(names[white])
+                    .append(',').append(opening).append(',').append(blackDiscs).append(',').append(whiteDiscs)
+                    .append(',').append(difference).append('\n');
+            synchronized (out) {
+                out.write(line.toString());
+                if (game % FLUSH_PERIOD == 0L)
+                    out.flush();
+            }
+        }
+        return standings;
+    }
+
+    /**
+     * @return final position
+     */
+    private static SearchPosition play(SearchPosition position, SearchEngine black, SearchEngine white) {
+        black.reset();
+        if (white != black)
+            white.reset();
+        while (true) {
+            if (position.legalMoves() == 0L) {
+                if (position.rivalLegalMoves() == 0L)
+                    return position;
+                position.makePass();
+                continue;
+            }
+            SearchEngine engine = position.getColorToMove() == BLACK ? black : white;
+            position.makeMove(engine.search(position).getBestMove());
+        }
+    }
+
+    //empty squares go to the winner
+    private static int blackDifference(SearchPosition end) {
+        int difference = bitCount(end.getBlackPawns()) - bitCount(end.getWhitePawns());
+        int empties = bitCount(end.getEmptySquares());
+        return difference > 0 ? difference + empties : difference < 0 ? difference - empties : 0;
+    }
+}
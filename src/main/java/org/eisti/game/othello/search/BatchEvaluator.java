@@ -0,0 +1,79 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.BatchMoveGenerator;
+
+/**
+ * {@link Evaluator} over many positions at once, positions given as in {@link BatchMoveGenerator}.
+ * <p/>
+ * {@link HeuristicEvaluator} computes the mobility of every position with {@link BatchMoveGenerator},
+ * other evaluators are called position by position.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class BatchEvaluator {
+
+    private BatchEvaluator() {
+    }
+
+    /**
+     * @param evaluator evaluation of a single position
+     * @param players   pawns of the side to move of each position
+     * @param rivals    pawns of the side waiting of each position
+     * @param scores    receives score of each position for its side to move
+     * @param count     number of positions
+     */
+    public static void evaluate(Evaluator evaluator, long[] players, long[] rivals, int[] scores, int count) {
+        evaluate(evaluator, players, rivals, scores, 0, count);
+    }
+
+    /**
+     * @param evaluator evaluation of a single position
+     * @param positions packed positions
+     * @param scores    receives score of each position for its side to move
+     * @param count     number of positions
+     */
+    public static void evaluate(Evaluator evaluator, long[] positions, int[] scores, int count) {
+        long[] players = new long[Math.min(BatchMoveGenerator.BLOCK, count)];
+        long[] rivals = new long[players.length];
+        for (int from = 0; from < count; from += BatchMoveGenerator.BLOCK) {
+            int length = Math.min(BatchMoveGenerator.BLOCK, count - from);
+            for (int i = 0; i < length; i++) {
+                players[i] = positions[2 * (from + i)];
+                rivals[i] = positions[2 * (from + i) + 1];
+            }
+            evaluate(evaluator, players, rivals, scores, from, length);
+        }
+    }
+
+    //positions from index 0, scores from index to
+    private static void evaluate(Evaluator evaluator, long[] players, long[] rivals, int[] scores, int to, int count) {
+        if (evaluator instanceof HeuristicEvaluator) {
+            ((HeuristicEvaluator) evaluator).evaluate(players, rivals, scores, to, count);
+            return;
+        }
+        for (int i = 0; i < count; i++)
+            scores[to + i] = evaluator.evaluate(players[i], rivals[i]);
+    }
+}
@@ -0,0 +1,565 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.OthelloProperties;
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.Squares;
+import org.eisti.game.othello.Zobrist;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+import static org.eisti.game.othello.MoveGenerator.flips;
+import static org.eisti.game.othello.MoveGenerator.legalMoves;
+import static org.eisti.game.othello.search.TranspositionTable.*;
+
+/**
+ * Exact endgame solver, computes the final pawn differential under perfect play.
+ * <p/>
+ * Search is split by number of empty squares :
+ * <ul>
+ * <li>above {@link #SHALLOW_EMPTIES} : principal variation search with transposition table
+ * and fastest-first ordering (least rival mobility first)</li>
+ * <li>down to 5 empties : no move generation, empty squares are tried by parity regions,
+ * odd quadrants first, then by square class (corners first, X squares last)</li>
+ * <li>last 4, 3, 2 and 1 empties : dedicated code paths on square indexes</li>
+ * </ul>
+ * Scores are pawn counts, not {@link SearchEngine#DISC} units,
+ * but transposition table entries are shared with {@link SearchEngine} and are stored in DISC units.
+ * Nothing is allocated during a solve. A solver is not thread safe.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class EndgameSolver
+        implements OthelloProperties {
+
+    /**
+     * Deepest number of empties solved without move generation nor hashing
+     */
+    public static final int SHALLOW_EMPTIES = 7;
+
+    private static final int SCORE_MAX = Squares.SQUARES_COUNT;
+    private static final int NO_SCORE = -SCORE_MAX - 1;
+    //nodes between two budget checks
+    private static final int CHECK_PERIOD = 0xFFF;
+
+    //4x4 quadrants, parity is computed on these regions
+    private static final long[] QUADRANTS = {
+            0x000000000F0F0F0FL, 0x00000000F0F0F0F0L,
+            0x0F0F0F0F00000000L, 0xF0F0F0F000000000L
+    };
+    private static final long CORNERS = HeuristicEvaluator.CORNERS;
+    //edge squares two steps away from a corner : C1, A3...
+    private static final long A_SQUARES = 0x2400810000810024L;
+    //edge squares in the middle : D1, A4...
+    private static final long B_SQUARES = 0x1800008181000018L;
+    //square classes, most promising first, they cover the whole board
+    private static final long[] SQUARE_CLASSES = {
+            CORNERS,
+            A_SQUARES,
+            B_SQUARES,
+            ~(CORNERS | A_SQUARES | B_SQUARES | HeuristicEvaluator.C_SQUARES | HeuristicEvaluator.X_SQUARES),
+            HeuristicEvaluator.C_SQUARES,
+            HeuristicEvaluator.X_SQUARES
+    };
+
+    private final TranspositionTable table;
+    private final int[][] moveLists = new int[Squares.SQUARES_COUNT + 1][Squares.SQUARES_COUNT];
+    private final int[][] priorities = new int[Squares.SQUARES_COUNT + 1][Squares.SQUARES_COUNT];
+
+    private long nodeLimit = Long.MAX_VALUE;
+    private long timeLimit = Long.MAX_VALUE;
+    private long deadline;
+    private long nodes;
+    private volatile boolean stopped;
+
+    /**
+     * @param table transposition table, shared with midgame search if any
+     */
+    public EndgameSolver(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public final void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * @param timeLimit maximum duration of a solve, in milliseconds
+     */
+    public final void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Abort current solve, may be called from another thread.
+     * The solver stays stopped until next {@link #prepare()}, even if no solve was running.
+     */
+    public final void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Clear a previous {@link #stop()}, before the solving thread starts so that an early stop is not lost
+     */
+    public final void prepare() {
+        stopped = false;
+    }
+
+    public final boolean isStopped() {
+        return stopped;
+    }
+
+    public final long getNodes() {
+        return nodes;
+    }
+
+    /*=========================================================================
+                       ROOT
+    =========================================================================*/
+
+    /**
+     * @param root position to solve, left unchanged
+     * @return best move, exact score in {@link SearchEngine#DISC} units and number of empties as depth,
+     *         or null if budget is spent or the solver is stopped before the end
+     */
+    public final SearchResult search(SearchPosition root) {
+        long start = System.currentTimeMillis();
+        start(start);
+
+        long player = root.getPlayerPawns();
+        long rival = root.getRivalPawns();
+        int color = root.getColorToMove();
+        long moves = legalMoves(player, rival);
+        int empties = bitCount(~(player | rival));
+
+        if (moves == 0L) {
+            int score = solve(player, rival, color, -SCORE_MAX, SCORE_MAX);
+            return stopped ? null : new SearchResult(Squares.PASS, score * SearchEngine.DISC, empties,
+                    nodes, System.currentTimeMillis() - start);
+        }
+
+        int[] moveList = moveLists[empties];
+        int count = fastestFirst(player, rival, moves, NO_MOVE, empties, moveList);
+
+        int alpha = -SCORE_MAX;
+        int bestScore = NO_SCORE;
+        int bestMove = moveList[0];
+        for (int i = 0; i < count; i++) {
+            int move = moveList[i];
+            long reversed = flips(player, rival, move);
+            long nextPlayer = rival & ~reversed;
+            long nextRival = player | reversed | (1L << move);
+            int score;
+            if (i == 0) {
+                score = -solve(nextPlayer, nextRival, color ^ 1, -SCORE_MAX, -alpha);
+            } else {
+                score = -solve(nextPlayer, nextRival, color ^ 1, -alpha - 1, -alpha);
+                if (score > alpha)
+                    score = -solve(nextPlayer, nextRival, color ^ 1, -SCORE_MAX, -alpha);
+            }
+            if (stopped)
+                return null;
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha)
+                    alpha = score;
+            }
+        }
+        return new SearchResult(bestMove, bestScore * SearchEngine.DISC, empties,
+                nodes, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @param position position to solve
+     * @return exact final pawn differential for side to move,
+     *         meaningless if budget is spent before the end (see {@link #isStopped()})
+     */
+    public final int solve(SearchPosition position) {
+        start(System.currentTimeMillis());
+        return solve(position.getPlayerPawns(), position.getRivalPawns(), position.getColorToMove(),
+                -SCORE_MAX, SCORE_MAX);
+    }
+
+    //stop flag is left alone, see prepare()
+    private void start(long start) {
+        deadline = timeLimit == Long.MAX_VALUE ? Long.MAX_VALUE : start + timeLimit;
+        nodes = 0L;
+    }
+
+    /**
+     * Dispatch on number of empties, color is only needed to hash deep positions
+     */
+    private int solve(long player, long rival, int color, int alpha, int beta) {
+        long empty = ~(player | rival);
+        int empties = bitCount(empty);
+        if (empties > SHALLOW_EMPTIES)
+            return solveDeep(player, rival, color, alpha, beta, false);
+        if (empties > 2)
+            return solveShallow(player, rival, alpha, beta, false);
+        if (empties == 2) {
+            int x1 = numberOfTrailingZeros(empty);
+            int x2 = numberOfTrailingZeros(empty & (empty - 1));
+            return solve2(player, rival, alpha, beta, x1, x2, false);
+        }
+        if (empties == 1) {
+            nodes++;
+            return solve1(player, rival, numberOfTrailingZeros(empty));
+        }
+        return bitCount(player) * 2 - SCORE_MAX;
+    }
+
+    /*=========================================================================
+                       DEEP : MOVE GENERATION, HASH, FASTEST FIRST
+    =========================================================================*/
+
+    private int solveDeep(long player, long rival, int color, int alpha, int beta, boolean passed) {
+        if ((++nodes & CHECK_PERIOD) == 0L)
+            checkBudget();
+        if (stopped)
+            return 0;
+
+        long moves = legalMoves(player, rival);
+        if (moves == 0L) {
+            if (passed)
+                return finalScore(player, rival);
+            return -solveDeep(rival, player, color ^ 1, -beta, -alpha, true);
+        }
+
+        int empties = bitCount(~(player | rival));
+        long key = 0L;
+        int hashMove = NO_MOVE;
+        if (table != null) {
+            key = color == BLACK
+                    ? Zobrist.positionKey(player, rival, BLACK)
+                    : Zobrist.positionKey(rival, player, WHITE);
+            long entry = table.probe(key);
+            if (entry != MISS) {
+                hashMove = moveOf(entry);
+                //a search as deep as empties has seen the end of the game
+                if (depthOf(entry) >= empties) {
+                    int bound = boundOf(entry);
+                    int score = scoreOf(entry);
+                    if (bound == EXACT)
+                        return floorDiscs(score);
+                    if (bound == LOWER_BOUND && ceilDiscs(score) >= beta)
+                        return ceilDiscs(score);
+                    if (bound == UPPER_BOUND && floorDiscs(score) <= alpha)
+                        return floorDiscs(score);
+                }
+            }
+        }
+
+        int[] moveList = moveLists[empties];
+        int count = fastestFirst(player, rival, moves, hashMove, empties, moveList);
+
+        int originalAlpha = alpha;
+        int bestScore = NO_SCORE;
+        int bestMove = NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            int move = moveList[i];
+            long reversed = flips(player, rival, move);
+            long nextPlayer = rival & ~reversed;
+            long nextRival = player | reversed | (1L << move);
+            int score;
+            if (i == 0) {
+                score = -solve(nextPlayer, nextRival, color ^ 1, -beta, -alpha);
+            } else {
+                score = -solve(nextPlayer, nextRival, color ^ 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta)
+                    score = -solve(nextPlayer, nextRival, color ^ 1, -beta, -alpha);
+            }
+            if (stopped)
+                return 0;
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha)
+                    alpha = score;
+                if (alpha >= beta)
+                    break;
+            }
+        }
+
+        if (table != null) {
+            int bound = bestScore <= originalAlpha
+                    ? UPPER_BOUND
+                    : bestScore >= beta ? LOWER_BOUND : EXACT;
+            table.store(key, empties, bound, bestScore * SearchEngine.DISC,
+                    bound == UPPER_BOUND ? NO_MOVE : bestMove);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Order moves by rival mobility once played, corners first on ties
+     */
+    private int fastestFirst(long player, long rival, long moves, int hashMove, int empties, int[] moveList) {
+        int[] priority = priorities[empties];
+        int count = 0;
+        for (; moves != 0L; moves &= moves - 1) {
+            int move = numberOfTrailingZeros(moves);
+            int score;
+            if (move == hashMove) {
+                score = Integer.MAX_VALUE;
+            } else {
+                long reversed = flips(player, rival, move);
+                long rivalMoves = legalMoves(rival & ~reversed, player | reversed | (1L << move));
+                score = -(bitCount(rivalMoves) + bitCount(rivalMoves & CORNERS)) * 4
+                        + (((1L << move) & CORNERS) != 0L ? 2 : 0);
+            }
+            int i = count++;
+            for (; i > 0 && priority[i - 1] < score; i--) {
+                priority[i] = priority[i - 1];
+                moveList[i] = moveList[i - 1];
+            }
+            priority[i] = score;
+            moveList[i] = move;
+        }
+        return count;
+    }
+
+    /*=========================================================================
+                       SHALLOW : PARITY ORDERING
+    =========================================================================*/
+
+    private int solveShallow(long player, long rival, int alpha, int beta, boolean passed) {
+        nodes++;
+        long empty = ~(player | rival);
+        if (bitCount(empty) == 4)
+            return solve4(player, rival, alpha, beta, empty, passed);
+        if (bitCount(empty) == 3)
+            return solve3(player, rival, alpha, beta, empty, passed);
+
+        long odd = oddRegions(empty);
+        int bestScore = NO_SCORE;
+        //odd regions then even ones
+        for (int parity = 0; parity < 2; parity++) {
+            long region = parity == 0 ? empty & odd : empty & ~odd;
+            for (long squareClass : SQUARE_CLASSES) {
+                for (long candidates = region & squareClass; candidates != 0L; candidates &= candidates - 1) {
+                    int move = numberOfTrailingZeros(candidates);
+                    long reversed = flips(player, rival, move);
+                    if (reversed == 0L)
+                        continue;
+                    int score = -solveShallow(rival & ~reversed, player | reversed | (1L << move),
+                            -beta, -alpha, false);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        if (score > alpha)
+                            alpha = score;
+                        if (alpha >= beta)
+                            return bestScore;
+                    }
+                }
+            }
+        }
+
+        if (bestScore == NO_SCORE) {
+            if (passed)
+                return finalScore(player, rival);
+            return -solveShallow(rival, player, -beta, -alpha, true);
+        }
+        return bestScore;
+    }
+
+    /**
+     * @return union of quadrants holding an odd number of empty squares
+     */
+    private static long oddRegions(long empty) {
+        long odd = 0L;
+        for (long quadrant : QUADRANTS)
+            if ((bitCount(empty & quadrant) & 1) != 0)
+                odd |= quadrant;
+        return odd;
+    }
+
+    /*=========================================================================
+                       LAST EMPTIES
+    =========================================================================*/
+
+    private int solve4(long player, long rival, int alpha, int beta, long empty, boolean passed) {
+        //odd regions first
+        long odd = oddRegions(empty);
+        long first = empty & odd;
+        long second = empty & ~odd;
+        int x1 = numberOfTrailingZeros(first != 0L ? first : second);
+        first &= ~(1L << x1);
+        second &= ~(1L << x1);
+        int x2 = numberOfTrailingZeros(first != 0L ? first : second);
+        first &= ~(1L << x2);
+        second &= ~(1L << x2);
+        int x3 = numberOfTrailingZeros(first != 0L ? first : second);
+        first &= ~(1L << x3);
+        second &= ~(1L << x3);
+        int x4 = numberOfTrailingZeros(first | second);
+
+        int bestScore = NO_SCORE;
+        long reversed;
+        if ((reversed = flips(player, rival, x1)) != 0L) {
+            bestScore = -solve3(rival & ~reversed, player | reversed | (1L << x1), -beta, -alpha,
+                    empty & ~(1L << x1), false);
+            if (bestScore >= beta)
+                return bestScore;
+            if (bestScore > alpha)
+                alpha = bestScore;
+        }
+        if ((reversed = flips(player, rival, x2)) != 0L) {
+            int score = -solve3(rival & ~reversed, player | reversed | (1L << x2), -beta, -alpha,
+                    empty & ~(1L << x2), false);
+            if (score > bestScore) {
+                bestScore = score;
+                if (score >= beta)
+                    return bestScore;
+                if (score > alpha)
+                    alpha = score;
+            }
+        }
+        if ((reversed = flips(player, rival, x3)) != 0L) {
+            int score = -solve3(rival & ~reversed, player | reversed | (1L << x3), -beta, -alpha,
+                    empty & ~(1L << x3), false);
+            if (score > bestScore) {
+                bestScore = score;
+                if (score >= beta)
+                    return bestScore;
+                if (score > alpha)
+                    alpha = score;
+            }
+        }
+        if ((reversed = flips(player, rival, x4)) != 0L) {
+            int score = -solve3(rival & ~reversed, player | reversed | (1L << x4), -beta, -alpha,
+                    empty & ~(1L << x4), false);
+            if (score > bestScore)
+                bestScore = score;
+        }
+
+        if (bestScore == NO_SCORE) {
+            if (passed)
+                return finalScore(player, rival);
+            return -solve4(rival, player, -beta, -alpha, empty, true);
+        }
+        return bestScore;
+    }
+
+    private int solve3(long player, long rival, int alpha, int beta, long empty, boolean passed) {
+        nodes++;
+        int x1 = numberOfTrailingZeros(empty);
+        empty &= empty - 1;
+        int x2 = numberOfTrailingZeros(empty);
+        empty &= empty - 1;
+        int x3 = numberOfTrailingZeros(empty);
+
+        int bestScore = NO_SCORE;
+        long reversed;
+        if ((reversed = flips(player, rival, x1)) != 0L) {
+            bestScore = -solve2(rival & ~reversed, player | reversed | (1L << x1), -beta, -alpha, x2, x3, false);
+            if (bestScore >= beta)
+                return bestScore;
+            if (bestScore > alpha)
+                alpha = bestScore;
+        }
+        if ((reversed = flips(player, rival, x2)) != 0L) {
+            int score = -solve2(rival & ~reversed, player | reversed | (1L << x2), -beta, -alpha, x1, x3, false);
+            if (score > bestScore) {
+                bestScore = score;
+                if (score >= beta)
+                    return bestScore;
+                if (score > alpha)
+                    alpha = score;
+            }
+        }
+        if ((reversed = flips(player, rival, x3)) != 0L) {
+            int score = -solve2(rival & ~reversed, player | reversed | (1L << x3), -beta, -alpha, x1, x2, false);
+            if (score > bestScore)
+                bestScore = score;
+        }
+
+        if (bestScore == NO_SCORE) {
+            if (passed)
+                return finalScore(player, rival);
+            return -solve3(rival, player, -beta, -alpha, (1L << x1) | (1L << x2) | (1L << x3), true);
+        }
+        return bestScore;
+    }
+
+    private int solve2(long player, long rival, int alpha, int beta, int x1, int x2, boolean passed) {
+        nodes++;
+        int bestScore = NO_SCORE;
+        long reversed;
+        if ((reversed = flips(player, rival, x1)) != 0L) {
+            bestScore = -solve1(rival & ~reversed, player | reversed | (1L << x1), x2);
+            if (bestScore >= beta)
+                return bestScore;
+        }
+        if ((reversed = flips(player, rival, x2)) != 0L) {
+            int score = -solve1(rival & ~reversed, player | reversed | (1L << x2), x1);
+            if (score > bestScore)
+                bestScore = score;
+        }
+
+        if (bestScore == NO_SCORE) {
+            if (passed)
+                return finalScore(player, rival);
+            return -solve2(rival, player, -beta, -alpha, x1, x2, true);
+        }
+        return bestScore;
+    }
+
+    /**
+     * @return final score for side to move, one empty square left
+     */
+    private static int solve1(long player, long rival, int x) {
+        long reversed = flips(player, rival, x);
+        if (reversed != 0L)
+            return (bitCount(player | reversed) + 1) * 2 - SCORE_MAX;
+        reversed = flips(rival, player, x);
+        if (reversed != 0L)
+            return SCORE_MAX - (bitCount(rival | reversed) + 1) * 2;
+        //nobody can play, empty square goes to the winner
+        int difference = bitCount(player) * 2 - (SCORE_MAX - 1);
+        return difference > 0 ? difference + 1 : difference - 1;
+    }
+
+    /*=========================================================================
+                       UTILITIES
+    =========================================================================*/
+
+    private static int finalScore(long player, long rival) {
+        return SearchEngine.finalScore(player, rival) / SearchEngine.DISC;
+    }
+
+    private static int floorDiscs(int score) {
+        return score >= 0 ? score / SearchEngine.DISC : -((-score + SearchEngine.DISC - 1) / SearchEngine.DISC);
+    }
+
+    private static int ceilDiscs(int score) {
+        return -floorDiscs(-score);
+    }
+
+    private void checkBudget() {
+        if (nodes >= nodeLimit
+                || (deadline != Long.MAX_VALUE && System.currentTimeMillis() >= deadline))
+            stopped = true;
+    }
+}
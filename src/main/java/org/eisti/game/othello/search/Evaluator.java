@@ -0,0 +1,41 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+/**
+ * Static evaluation of a position.
+ * <p/>
+ * Scores predict the final pawn differential from side to move point of view,
+ * in {@link SearchEngine#DISC} units, so that they compare with exact end of game scores.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public interface Evaluator {
+
+    /**
+     * @param player pawns of the side to move
+     * @param rival  pawns of the side waiting
+     * @return position score for the side to move
+     */
+    int evaluate(long player, long rival);
+}
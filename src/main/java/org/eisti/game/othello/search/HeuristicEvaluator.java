@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.BatchMoveGenerator;
+import org.eisti.game.othello.MoveGenerator;
+
+import static java.lang.Long.bitCount;
+
+/**
+ * Default evaluation : corners, corner-adjacent squares, edges and mobility.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class HeuristicEvaluator
+        implements Evaluator {
+
+    static final long CORNERS = 0x8100000000000081L;
+    //diagonal neighbours of corners : B2, G2, B7, G7
+    static final long X_SQUARES = 0x0042000000004200L;
+    //edge neighbours of corners
+    static final long C_SQUARES = 0x4281000000008142L;
+    static final long EDGES = 0x3C0081818181003CL;
+
+    private static final int CORNER_WEIGHT = 8 * SearchEngine.DISC;
+    private static final int X_SQUARE_WEIGHT = -4 * SearchEngine.DISC;
+    private static final int C_SQUARE_WEIGHT = -SearchEngine.DISC;
+    private static final int EDGE_WEIGHT = SearchEngine.DISC / 2;
+    private static final int MOBILITY_WEIGHT = SearchEngine.DISC;
+
+    @Override
+    public final int evaluate(long player, long rival) {
+        return squaresScore(player, rival)
+                + MOBILITY_WEIGHT * (bitCount(MoveGenerator.legalMoves(player, rival))
+                - bitCount(MoveGenerator.legalMoves(rival, player)));
+    }
+
+    /**
+     * Same scores as {@link #evaluate(long, long)}, mobility of every position computed at once
+     *
+     * @see BatchEvaluator
+     */
+    final void evaluate(long[] players, long[] rivals, int[] scores, int to, int count) {
+        int[] playerMobilities = new int[count];
+        int[] rivalMobilities = new int[count];
+        BatchMoveGenerator.mobility(players, rivals, playerMobilities, count);
+        BatchMoveGenerator.mobility(rivals, players, rivalMobilities, count);
+        for (int i = 0; i < count; i++)
+            scores[to + i] = squaresScore(players[i], rivals[i])
+                    + MOBILITY_WEIGHT * (playerMobilities[i] - rivalMobilities[i]);
+    }
+
+    //every term but mobility
+    private static int squaresScore(long player, long rival) {
+        long empty = ~(player | rival);
+        //corner-adjacent squares only matter while corner is empty
+        long exposed = dangerousSquares(empty & CORNERS);
+
+        return CORNER_WEIGHT * (bitCount(player & CORNERS) - bitCount(rival & CORNERS))
+                + X_SQUARE_WEIGHT * (bitCount(player & X_SQUARES & exposed) - bitCount(rival & X_SQUARES & exposed))
+                + C_SQUARE_WEIGHT * (bitCount(player & C_SQUARES & exposed) - bitCount(rival & C_SQUARES & exposed))
+                + EDGE_WEIGHT * (bitCount(player & EDGES) - bitCount(rival & EDGES));
+    }
+
+    /**
+     * @param emptyCorners empty corners mask
+     * @return X and C squares next to given corners
+     */
+    private static long dangerousSquares(long emptyCorners) {
+        long squares = 0L;
+        if ((emptyCorners & 0x1L) != 0L)
+            squares |= 0x0000000000000302L;
+        if ((emptyCorners & 0x80L) != 0L)
+            squares |= 0x000000000000C040L;
+        if ((emptyCorners & 0x0100000000000000L) != 0L)
+            squares |= 0x0203000000000000L;
+        if ((emptyCorners & 0x8000000000000000L) != 0L)
+            squares |= 0x40C0000000000000L;
+        return squares;
+    }
+}
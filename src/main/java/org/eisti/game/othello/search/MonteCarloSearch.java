@@ -0,0 +1,572 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.MoveGenerator;
+import org.eisti.game.othello.OthelloContext;
+import org.eisti.game.othello.OthelloProperties;
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.Squares;
+import org.eisti.labs.game.Ply;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+
+/**
+ * Monte Carlo tree search (UCT), an alternative to {@link SearchEngine} needing no evaluator.
+ * <p/>
+ * The tree lives in an arena of primitive arrays, children of a node being contiguous.
+ * Statistics of a node are packed in one long updated atomically : visits in the high half,
+ * results in half points in the low half (win 2, draw 1, loss 0) for the player who moved into the node.
+ * Threads share the tree without lock : a thread going down a node counts a visit at once, as a virtual
+ * loss steering other threads elsewhere, and adds the result when its playout is over.
+ * A node is expanded by the first thread claiming it, the others play out from it meanwhile.
+ * <p/>
+ * Playouts play random moves on bitboards, without any allocation.
+ * The tree is kept between searches : when the new root was searched before,
+ * up to two plies down the previous root, its subtree is the start of the new tree.
+ * <p/>
+ * Search ends after a number of playouts or a time, whichever comes first.
+ * Best move is the most visited one, its score is its expected result scaled to
+ * +/- 64 discs of {@link SearchEngine#DISC} and depth is the deepest node reached.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class MonteCarloSearch
+        implements OthelloProperties {
+
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+    /**
+     * Smallest tree : the root and one child per empty square of the start position
+     */
+    public static final int MIN_CAPACITY = Squares.SQUARES_COUNT - 4 + 1;
+    /**
+     * UCB1 exploration constant for results between 0 and 1
+     */
+    public static final double DEFAULT_EXPLORATION = Math.sqrt(2.0);
+
+    //one visit in node statistics, results below
+    private static final long VISIT = 1L << 32;
+    private static final long RESULTS = VISIT - 1L;
+    private static final int WIN = 2;
+    private static final int DRAW = 1;
+    //child index of a node not expanded yet, root is node 0 so that no child starts there
+    private static final int UNEXPANDED = 0;
+    private static final int EXPANDING = -1;
+    //playouts between two clock checks
+    private static final int CHECK_PERIOD = 0xFF;
+
+    private final int capacity;
+    private final int threads;
+    private final ExecutorService helpers;
+    private double exploration = DEFAULT_EXPLORATION;
+    private long playoutLimit = Long.MAX_VALUE;
+    private long timeLimit = Long.MAX_VALUE;
+    //stop requested by the user, cleared once a search ends
+    private volatile boolean stopped;
+    //current search is over, set by the first thread reaching a limit
+    private volatile boolean finished;
+
+    //tree kept from last search
+    private Arena tree;
+    private long rootBlack;
+    private long rootWhite;
+    private int rootColor;
+
+    /**
+     * @param threads  number of search threads, calling one included
+     * @param capacity maximum number of tree nodes, at least {@link #MIN_CAPACITY}
+     */
+    public MonteCarloSearch(int threads, int capacity) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("At least one search thread is needed : " + threads);
+        if (capacity < MIN_CAPACITY)
+            throw new IllegalArgumentException("Tree needs room for its root and every root move : " + capacity);
+        this.threads = threads;
+        this.capacity = capacity;
+        this.helpers = threads > 1
+                ? Executors.newFixedThreadPool(threads - 1)
+                : null;
+    }
+
+    /*=========================================================================
+                       CONFIGURATION
+    =========================================================================*/
+
+    /**
+     * @param playoutLimit number of playouts of a search, all threads included
+     */
+    public final void setPlayoutLimit(long playoutLimit) {
+        this.playoutLimit = playoutLimit;
+    }
+
+    /**
+     * @param timeLimit search time in milliseconds
+     */
+    public final void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    public final void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+    public final int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return number of nodes of current tree
+     */
+    public final int getTreeSize() {
+        return tree == null ? 0 : tree.size.get();
+    }
+
+    /**
+     * Abort current search, may be called from another thread.
+     * A stop coming before a search starts aborts that search at once : the request is
+     * cleared when a search ends, not when it starts, so that it is not lost by a search
+     * handed to another thread.
+     */
+    public final void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Forget the tree, next search starts from scratch
+     */
+    public final void clear() {
+        tree = null;
+    }
+
+    /*=========================================================================
+                       SEARCH
+    =========================================================================*/
+
+    /**
+     * @param context game context
+     * @return best ply for context's active player
+     */
+    public final Ply findBestPly(OthelloContext context) {
+        return search(SearchPosition.of(context)).getBestPly();
+    }
+
+    /**
+     * Root moves are known before any playout : a search stopped or out of budget
+     * at once still returns a legal move, with no score.
+     *
+     * @param root position to search, left unchanged
+     * @return most visited move, a forced move or pass at once with depth 0
+     */
+    public final SearchResult search(SearchPosition root) {
+        try {
+            return searchTree(root);
+        } finally {
+            //a stop is for one search
+            stopped = false;
+        }
+    }
+
+    private SearchResult searchTree(SearchPosition root) {
+        long start = System.currentTimeMillis();
+        long moves = root.legalMoves();
+        if (moves == 0L)
+            return new SearchResult(Squares.PASS, 0, 0, 0L, 0L);
+        if (bitCount(moves) == 1)
+            return new SearchResult(numberOfTrailingZeros(moves), 0, 0, 0L, 0L);
+
+        tree = reuse(root.getBlackPawns(), root.getWhitePawns(), root.getColorToMove());
+        rootBlack = root.getBlackPawns();
+        rootWhite = root.getWhitePawns();
+        rootColor = root.getColorToMove();
+
+        finished = false;
+        Worker main = new Worker(tree, 0);
+        //before any helper : room is left for root moves, see MIN_CAPACITY
+        main.expandRoot();
+        final AtomicLong playouts = new AtomicLong();
+        final long deadline = timeLimit == Long.MAX_VALUE ? Long.MAX_VALUE : start + timeLimit;
+        List<Future<Integer>> helperDepths = new ArrayList<Future<Integer>>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            final Worker helper = new Worker(tree, i);
+            helperDepths.add(helpers.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return helper.run(playouts, deadline);
+                }
+            }));
+        }
+
+        int depth;
+        try {
+            depth = main.run(playouts, deadline);
+        } finally {
+            //helpers stop with the calling thread
+            finished = true;
+        }
+        try {
+            for (Future<Integer> helperDepth : helperDepths)
+                depth = Math.max(depth, helperDepth.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new Error("Unexpected error in helper search thread", e);
+        }
+
+        //most visited child, best results to break ties
+        int children = tree.children.get(0);
+        int best = children;
+        for (int child = children + 1; child < children + tree.counts[0]; child++) {
+            long stats = tree.stats.get(child);
+            long bestStats = tree.stats.get(best);
+            if ((stats >>> 32) > (bestStats >>> 32)
+                    || (stats >>> 32) == (bestStats >>> 32) && (stats & RESULTS) > (bestStats & RESULTS))
+                best = child;
+        }
+        long bestStats = tree.stats.get(best);
+        double expected = (bestStats >>> 32) == 0L
+                ? 0.5
+                : (bestStats & RESULTS) / (2.0 * (bestStats >>> 32));
+        int score = (int) Math.round((2.0 * expected - 1.0) * Squares.SQUARES_COUNT * SearchEngine.DISC);
+        return new SearchResult(tree.moves[best], score, depth, playouts.get(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @return subtree of last tree rooted at given position if found near last root, a new tree otherwise
+     */
+    private Arena reuse(long black, long white, int color) {
+        if (tree != null) {
+            long previousPlayer = rootColor == WHITE ? rootWhite : rootBlack;
+            long previousRival = rootColor == WHITE ? rootBlack : rootWhite;
+            int node = find(0, previousPlayer, previousRival, rootColor, black, white, color, 2);
+            if (node >= 0)
+                return tree.copy(node, capacity);
+        }
+        return new Arena(capacity);
+    }
+
+    /**
+     * @return node of given position in tree down from given node, -1 if not found within given plies
+     */
+    private int find(int node, long player, long rival, int color,
+                     long black, long white, int wantedColor, int plies) {
+        if (color == wantedColor
+                && (color == WHITE ? rival : player) == black
+                && (color == WHITE ? player : rival) == white)
+            return node;
+        int children = tree.children.get(node);
+        if (plies == 0 || children <= UNEXPANDED)
+            return -1;
+        for (int child = children; child < children + tree.counts[node]; child++) {
+            int move = tree.moves[child];
+            long nextPlayer = player;
+            long nextRival = rival;
+            if (move != Squares.PASS) {
+                long reversed = MoveGenerator.flips(player, rival, move);
+                nextPlayer = player | reversed | (1L << move);
+                nextRival = rival & ~reversed;
+            }
+            int found = find(child, nextRival, nextPlayer, color ^ 1, black, white, wantedColor, plies - 1);
+            if (found >= 0)
+                return found;
+        }
+        return -1;
+    }
+
+    /**
+     * Release helper threads, search can no more be used
+     */
+    public final void shutdown() {
+        if (helpers != null)
+            helpers.shutdownNow();
+    }
+
+    /*=========================================================================
+                       TREE
+    =========================================================================*/
+
+    /**
+     * Nodes in primitive arrays, indexed by node number, root being node 0
+     */
+    private static final class Arena {
+        //first child, UNEXPANDED or EXPANDING, set once children are written
+        private final AtomicIntegerArray children;
+        private final byte[] counts;
+        //square played to reach the node, or PASS
+        private final byte[] moves;
+        private final AtomicLongArray stats;
+        private final AtomicInteger size = new AtomicInteger(1);
+
+        private Arena(int capacity) {
+            this.children = new AtomicIntegerArray(capacity);
+            this.counts = new byte[capacity];
+            this.moves = new byte[capacity];
+            this.stats = new AtomicLongArray(capacity);
+        }
+
+        /**
+         * @return first of count new nodes, -1 if the arena is full
+         */
+        private int allocate(int count) {
+            while (true) {
+                int first = size.get();
+                if (first + count > counts.length)
+                    return -1;
+                if (size.compareAndSet(first, first + count))
+                    return first;
+            }
+        }
+
+        /**
+         * @return new arena holding given node's subtree, breadth first, that node as root
+         */
+        private Arena copy(int root, int capacity) {
+            Arena copy = new Arena(capacity);
+            copy.moves[0] = moves[root];
+            copy.stats.set(0, stats.get(root));
+            //copied nodes and their source, in copy order
+            int[] sources = new int[size.get()];
+            sources[0] = root;
+            for (int next = 0, copied = 1; next < copied; next++) {
+                int source = sources[next];
+                int first = children.get(source);
+                if (first <= UNEXPANDED)
+                    continue;
+                int count = counts[source];
+                copy.counts[next] = (byte) count;
+                copy.children.set(next, copied);
+                for (int child = first; child < first + count; child++) {
+                    copy.moves[copied] = moves[child];
+                    copy.stats.set(copied, stats.get(child));
+                    sources[copied++] = child;
+                }
+                copy.size.set(copied);
+            }
+            return copy;
+        }
+    }
+
+    /*=========================================================================
+                       SEARCH THREAD
+    =========================================================================*/
+
+    private final class Worker {
+        private final Arena tree;
+        private final int[] path = new int[SearchEngine.MAX_PLY];
+        //color of the player who moved into each node of the path
+        private final int[] movers = new int[SearchEngine.MAX_PLY];
+        private long random;
+
+        private Worker(Arena tree, int index) {
+            this.tree = tree;
+            this.random = 0x9E3779B97F4A7C15L * (index + 1) ^ System.nanoTime();
+        }
+
+        /**
+         * @return deepest node reached
+         */
+        private int run(AtomicLong playouts, long deadline) {
+            long rootPlayer = rootColor == WHITE ? rootWhite : rootBlack;
+            long rootRival = rootColor == WHITE ? rootBlack : rootWhite;
+            int deepest = 0;
+            while (!stopped && !finished) {
+                long done = playouts.getAndIncrement();
+                if (done >= playoutLimit
+                        || (done & CHECK_PERIOD) == 0L && System.currentTimeMillis() >= deadline) {
+                    //this increment started no playout
+                    playouts.decrementAndGet();
+                    finished = true;
+                    break;
+                }
+                deepest = Math.max(deepest, iterate(rootPlayer, rootRival, rootColor));
+            }
+            return deepest;
+        }
+
+        /**
+         * Select down to a new node, play out from there and record the result along the path
+         *
+         * @return depth of the playout start
+         */
+        private int iterate(long player, long rival, int color) {
+            int node = 0;
+            int depth = 0;
+            path[0] = 0;
+            tree.stats.addAndGet(0, VISIT);
+            while (depth < SearchEngine.MAX_PLY - 1) {
+                int first = tree.children.get(node);
+                if (first == UNEXPANDED) {
+                    expand(node, player, rival);
+                    first = tree.children.get(node);
+                }
+                //being expanded by another thread, or arena full
+                if (first <= UNEXPANDED)
+                    break;
+                int count = tree.counts[node];
+                //game over
+                if (count == 0)
+                    break;
+
+                int child = select(node, first, count);
+                //visit counted at once : a virtual loss until the result is known
+                long stats = tree.stats.addAndGet(child, VISIT);
+                int move = tree.moves[child];
+                if (move == Squares.PASS) {
+                    long mover = player;
+                    player = rival;
+                    rival = mover;
+                } else {
+                    long reversed = MoveGenerator.flips(player, rival, move);
+                    long mover = player | reversed | (1L << move);
+                    player = rival & ~reversed;
+                    rival = mover;
+                }
+                path[++depth] = child;
+                movers[depth] = color;
+                color ^= 1;
+                node = child;
+                //first visit : play out from this new node
+                if ((stats >>> 32) == 1L)
+                    break;
+            }
+
+            int difference = playout(player, rival);
+            //difference is known for the side to move at playout start
+            for (int i = 1; i <= depth; i++) {
+                int result = movers[i] == color
+                        ? (difference > 0 ? WIN : difference == 0 ? DRAW : 0)
+                        : (difference < 0 ? WIN : difference == 0 ? DRAW : 0);
+                if (result != 0)
+                    tree.stats.addAndGet(path[i], result);
+            }
+            return depth;
+        }
+
+        private void expandRoot() {
+            expand(0, rootColor == WHITE ? rootWhite : rootBlack, rootColor == WHITE ? rootBlack : rootWhite);
+            if (tree.children.get(0) <= UNEXPANDED)
+                throw new IllegalStateException("No room left for root moves, tree holds " + tree.size.get());
+        }
+
+        /**
+         * Children of a node are its legal moves, a pass when only rival can move, none when game is over
+         */
+        private void expand(int node, long player, long rival) {
+            if (!tree.children.compareAndSet(node, UNEXPANDED, EXPANDING))
+                return;
+            long moves = MoveGenerator.legalMoves(player, rival);
+            int count = moves != 0L
+                    ? bitCount(moves)
+                    : MoveGenerator.hasLegalMove(rival, player) ? 1 : 0;
+            int first = tree.allocate(count);
+            if (first < 0) {
+                //arena full : node stays a leaf, tried again later in vain but harmless
+                tree.children.set(node, UNEXPANDED);
+                return;
+            }
+            if (moves == 0L && count == 1)
+                tree.moves[first] = (byte) Squares.PASS;
+            for (int child = first; moves != 0L; child++, moves &= moves - 1)
+                tree.moves[child] = (byte) numberOfTrailingZeros(moves);
+            tree.counts[node] = (byte) count;
+            //publishes moves and count
+            tree.children.set(node, first);
+        }
+
+        /**
+         * @return child maximizing UCB1, an unvisited one first
+         */
+        private int select(int node, int first, int count) {
+            double logVisits = Math.log((double) (tree.stats.get(node) >>> 32));
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < first + count; child++) {
+                long stats = tree.stats.get(child);
+                long visits = stats >>> 32;
+                if (visits == 0L)
+                    return child;
+                double value = (stats & RESULTS) / (2.0 * visits)
+                        + exploration * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Random moves until neither side can move
+         *
+         * @return disc difference for the side to move at start
+         */
+        private int playout(long player, long rival) {
+            boolean swapped = false;
+            while (true) {
+                long moves = MoveGenerator.legalMoves(player, rival);
+                if (moves == 0L) {
+                    if (!MoveGenerator.hasLegalMove(rival, player))
+                        break;
+                } else {
+                    for (int skip = nextInt(bitCount(moves)); skip-- > 0; )
+                        moves &= moves - 1;
+                    int square = numberOfTrailingZeros(moves);
+                    long reversed = MoveGenerator.flips(player, rival, square);
+                    long mover = player | reversed | (1L << square);
+                    player = rival & ~reversed;
+                    rival = mover;
+                    swapped = !swapped;
+                    continue;
+                }
+                //pass
+                long mover = player;
+                player = rival;
+                rival = mover;
+                swapped = !swapped;
+            }
+            int difference = bitCount(player) - bitCount(rival);
+            return swapped ? -difference : difference;
+        }
+
+        //xorshift, a few cycles and no shared state
+        private int nextInt(int bound) {
+            random ^= random << 13;
+            random ^= random >>> 7;
+            random ^= random << 17;
+            return (int) (((random >>> 33) * bound) >>> 31);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.MoveGenerator;
+import org.eisti.game.othello.Squares;
+
+import java.util.Arrays;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+
+/**
+ * Move ordering of a search thread.
+ * <p/>
+ * Moves are ordered as follows :
+ * <ol>
+ * <li>hash move from the transposition table</li>
+ * <li>killer moves, the last two moves which produced a cut-off at the same ply</li>
+ * <li>other moves by ascending rival mobility once played, ties broken by history score</li>
+ * </ol>
+ * Close to the leaves mobility is not worth its cost and only history is used.
+ * Move lists are plain arrays owned by the caller, nothing is allocated while ordering.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class MoveOrdering {
+
+    private static final int HASH_MOVE_PRIORITY = Integer.MAX_VALUE;
+    private static final int FIRST_KILLER_PRIORITY = Integer.MAX_VALUE - 1;
+    private static final int SECOND_KILLER_PRIORITY = Integer.MAX_VALUE - 2;
+    //keep history a tie breaker of mobility
+    private static final int MOBILITY_WEIGHT = 1 << 20;
+    private static final int HISTORY_LIMIT = MOBILITY_WEIGHT - 1;
+
+    /**
+     * Shallowest remaining depth where rival mobility is computed
+     */
+    public static final int MOBILITY_MIN_DEPTH = 2;
+
+    private final int[][] killers;
+    private final int[] history = new int[Squares.SQUARES_COUNT];
+    private final int[][] priorities;
+
+    /**
+     * @param maxPly deepest ply which will be ordered
+     */
+    public MoveOrdering(int maxPly) {
+        this.killers = new int[maxPly][2];
+        this.priorities = new int[maxPly][Squares.SQUARES_COUNT];
+        clearKillers();
+    }
+
+    /**
+     * Forget killers and age history, to be called before each new search
+     */
+    public final void newSearch() {
+        clearKillers();
+        for (int square = 0; square < Squares.SQUARES_COUNT; square++)
+            history[square] >>= 1;
+    }
+
+    /**
+     * Forget killers and history, ordering is then the same as a new instance's
+     */
+    public final void clear() {
+        clearKillers();
+        Arrays.fill(history, 0);
+    }
+
+    private void clearKillers() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = TranspositionTable.NO_MOVE;
+            plyKillers[1] = TranspositionTable.NO_MOVE;
+        }
+    }
+
+    /**
+     * Fill and sort move list
+     *
+     * @param player   pawns of the side to move
+     * @param rival    pawns of the side waiting
+     * @param moves    legal moves mask
+     * @param hashMove transposition table move, or {@link TranspositionTable#NO_MOVE}
+     * @param depth    remaining depth
+     * @param ply      distance from root
+     * @param moveList array receiving ordered moves
+     * @return number of moves
+     */
+    public final int order(long player, long rival, long moves,
+                           int hashMove, int depth, int ply, int[] moveList) {
+        int[] priority = priorities[ply];
+        int[] plyKillers = killers[ply];
+        boolean byMobility = depth >= MOBILITY_MIN_DEPTH;
+
+        int count = 0;
+        for (; moves != 0L; moves &= moves - 1) {
+            int move = numberOfTrailingZeros(moves);
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE_PRIORITY;
+            } else if (move == plyKillers[0]) {
+                score = FIRST_KILLER_PRIORITY;
+            } else if (move == plyKillers[1]) {
+                score = SECOND_KILLER_PRIORITY;
+            } else if (byMobility) {
+                long reversed = MoveGenerator.flips(player, rival, move);
+                long rivalMobility = MoveGenerator.legalMoves(
+                        rival & ~reversed,
+                        player | reversed | (1L << move));
+                score = history[move] - bitCount(rivalMobility) * MOBILITY_WEIGHT;
+            } else {
+                score = history[move];
+            }
+
+            //insertion sort, move lists are short
+            int i = count++;
+            for (; i > 0 && priority[i - 1] < score; i--) {
+                priority[i] = priority[i - 1];
+                moveList[i] = moveList[i - 1];
+            }
+            priority[i] = score;
+            moveList[i] = move;
+        }
+        return count;
+    }
+
+    /**
+     * Remember a move which produced a beta cut-off
+     *
+     * @param move  cut-off move
+     * @param depth remaining depth where it happened
+     * @param ply   distance from root where it happened
+     */
+    public final void recordCutoff(int move, int depth, int ply) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        history[move] = Math.min(HISTORY_LIMIT, history[move] + depth * depth);
+    }
+}
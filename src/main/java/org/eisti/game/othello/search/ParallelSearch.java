@@ -0,0 +1,223 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.OthelloContext;
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.book.OpeningBook;
+import org.eisti.labs.game.Ply;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy SMP search : every thread runs its own {@link SearchEngine} on the same root,
+ * sharing one {@link TranspositionTable}.
+ * <p/>
+ * Threads only communicate through the table, what a thread finds short-cuts others.
+ * Helpers start at different depths and root move orders so that they do not walk the same tree in step.
+ * Search ends when the main engine ends, the deepest completed result wins.
+ * <p/>
+ * Evaluator is shared between threads and must be thread safe.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class ParallelSearch {
+
+    /**
+     * System property overriding default number of search threads
+     */
+    public static final String THREADS_PROPERTY = "othello.search.threads";
+
+    private final TranspositionTable table;
+    private final SearchEngine[] engines;
+    private final ExecutorService helpers;
+    private OpeningBook book;
+    private PositionStore store;
+
+    /**
+     * @param threads       number of search threads, main one included
+     * @param tableSizeInMB shared transposition table size
+     */
+    public ParallelSearch(int threads, int tableSizeInMB) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("At least one search thread is needed : " + threads);
+        this.table = new TranspositionTable(tableSizeInMB);
+        this.engines = new SearchEngine[threads];
+        for (int i = 0; i < threads; i++) {
+            engines[i] = new SearchEngine(table);
+            engines[i].setHelperIndex(i);
+        }
+        this.helpers = threads > 1
+                ? Executors.newFixedThreadPool(threads - 1)
+                : null;
+    }
+
+    /**
+     * @return {@link #THREADS_PROPERTY} if set, available processors otherwise
+     */
+    public static int defaultThreads() {
+        return Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+    }
+
+    /*=========================================================================
+                       CONFIGURATION
+    =========================================================================*/
+
+    public final int getThreads() {
+        return engines.length;
+    }
+
+    public final TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * @param book opening book played before searching, null for none
+     */
+    public final void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * @param store results recorded after each search and reused when deep enough, null for none
+     */
+    public final void setPositionStore(PositionStore store) {
+        this.store = store;
+    }
+
+    public final void setEvaluator(Evaluator evaluator) {
+        for (SearchEngine engine : engines)
+            engine.setEvaluator(evaluator);
+    }
+
+    public final void setMaxDepth(int maxDepth) {
+        for (SearchEngine engine : engines)
+            engine.setMaxDepth(maxDepth);
+    }
+
+    /**
+     * @param nodeLimit maximum number of nodes searched by main thread
+     */
+    public final void setNodeLimit(long nodeLimit) {
+        engines[0].setNodeLimit(nodeLimit);
+    }
+
+    public final void setTimeLimit(long timeLimit) {
+        for (SearchEngine engine : engines)
+            engine.setTimeLimit(timeLimit);
+    }
+
+    public final void stop() {
+        for (SearchEngine engine : engines)
+            engine.stop();
+    }
+
+    /*=========================================================================
+                       SEARCH
+    =========================================================================*/
+
+    /**
+     * @param context game context
+     * @return best ply for context's active player
+     */
+    public final Ply findBestPly(OthelloContext context) {
+        return search(SearchPosition.of(context)).getBestPly();
+    }
+
+    /**
+     * @param root position to search, left unchanged
+     * @return book move, stored result, or deepest result among search threads with nodes of every thread included
+     */
+    public final SearchResult search(SearchPosition root) {
+        if (book != null) {
+            SearchResult known = book.probe(root);
+            if (known != null)
+                return known;
+        }
+        if (store != null) {
+            SearchResult known = store.probe(root,
+                    Math.min(engines[0].getMaxDepth(), Long.bitCount(root.getEmptySquares())));
+            if (known != null)
+                return known;
+        }
+        long start = System.currentTimeMillis();
+        table.newSearch();
+        for (SearchEngine engine : engines)
+            engine.prepare();
+
+        List<Future<SearchResult>> helperResults =
+                new ArrayList<Future<SearchResult>>(engines.length - 1);
+        for (int i = 1; i < engines.length; i++) {
+            final SearchEngine helper = engines[i];
+            final SearchPosition helperRoot = root.copy();
+            helperResults.add(helpers.submit(new Callable<SearchResult>() {
+                @Override
+                public SearchResult call() {
+                    return helper.run(helperRoot);
+                }
+            }));
+        }
+
+        SearchResult best;
+        try {
+            best = engines[0].run(root);
+        } finally {
+            //helpers only work for the main thread
+            stop();
+        }
+
+        long nodes = best.getNodes();
+        try {
+            for (Future<SearchResult> helperResult : helperResults) {
+                SearchResult result = helperResult.get();
+                nodes += result.getNodes();
+                if (result.getDepth() > best.getDepth())
+                    best = result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new Error("Unexpected error in helper search thread", e);
+        }
+
+        SearchResult result = new SearchResult(best.getBestMove(), best.getScore(), best.getDepth(), nodes,
+                System.currentTimeMillis() - start);
+        if (store != null)
+            store.store(root, result);
+        return result;
+    }
+
+    /**
+     * Release helper threads, search can no more be used
+     */
+    public final void shutdown() {
+        if (helpers != null)
+            helpers.shutdownNow();
+    }
+}
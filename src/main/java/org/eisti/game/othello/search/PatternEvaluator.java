@@ -0,0 +1,181 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.MoveGenerator;
+
+import static java.lang.Long.bitCount;
+import static org.eisti.game.othello.Symmetry.flipDiagonal;
+import static org.eisti.game.othello.Symmetry.flipHorizontal;
+import static org.eisti.game.othello.Symmetry.flipVertical;
+import static org.eisti.game.othello.search.PatternWeights.*;
+
+/**
+ * Pattern evaluation : sum of precomputed weights of every edge, corner and diagonal configuration,
+ * plus a mobility term.
+ * <p/>
+ * Board masks are turned into the 8 symmetric orientations, see {@link org.eisti.game.othello.Symmetry}, so that every pattern instance
+ * is read from A1 corner, row by row. A row of pawns is converted to its base 3 index with a
+ * single lookup per color, diagonals are first packed into a row with a multiplication.
+ * <p/>
+ * Weights are immutable once loaded, an evaluator is thread safe.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class PatternEvaluator
+        implements Evaluator {
+
+    private static final long COLUMN_GATHER = 0x0101010101010101L;
+
+    /**
+     * Base 3 value of a byte whose bits are digits set to one
+     */
+    private static final int[] BASE3 = new int[256];
+    //upper diagonals, indexed by length
+    private static final long[] DIAGONALS = new long[9];
+    //lower diagonals, indexed by length
+    private static final long[] LOWER_DIAGONALS = new long[9];
+
+    static {
+        for (int value = 0; value < 256; value++) {
+            int base3 = 0;
+            for (int bit = 8; bit-- > 0; )
+                base3 = base3 * 3 + ((value >>> bit) & 1);
+            BASE3[value] = base3;
+        }
+        for (int length = 4; length <= 8; length++)
+            for (int i = 0; i < length; i++) {
+                DIAGONALS[length] |= 1L << (8 - length + 9 * i);
+                LOWER_DIAGONALS[length] |= 1L << (8 * (8 - length) + 9 * i);
+            }
+    }
+
+    private final short[] edges;
+    private final short[] corners2x5;
+    private final short[] corners3x3;
+    private final short[][] diagonals = new short[9][];
+    private final int mobilityWeight;
+
+    /**
+     * Evaluator with default weights
+     */
+    public PatternEvaluator() {
+        this(DefaultWeights.INSTANCE);
+    }
+
+    public PatternEvaluator(PatternWeights weights) {
+        this.edges = weights.table(EDGE_X);
+        this.corners2x5 = weights.table(CORNER_2X5);
+        this.corners3x3 = weights.table(CORNER_3X3);
+        this.diagonals[8] = weights.table(DIAGONAL_8);
+        this.diagonals[7] = weights.table(DIAGONAL_7);
+        this.diagonals[6] = weights.table(DIAGONAL_6);
+        this.diagonals[5] = weights.table(DIAGONAL_5);
+        this.diagonals[4] = weights.table(DIAGONAL_4);
+        this.mobilityWeight = weights.getMobilityWeight();
+    }
+
+    /**
+     * Lazy holder, default weights are read once
+     */
+    private static final class DefaultWeights {
+        static final PatternWeights INSTANCE = PatternWeights.loadDefault();
+    }
+
+    @Override
+    public final int evaluate(long player, long rival) {
+        long playerV = flipVertical(player), rivalV = flipVertical(rival);
+        long playerH = flipHorizontal(player), rivalH = flipHorizontal(rival);
+        long playerVH = flipVertical(playerH), rivalVH = flipVertical(rivalH);
+
+        long playerT = flipDiagonal(player), rivalT = flipDiagonal(rival);
+        long playerTV = flipDiagonal(playerV), rivalTV = flipDiagonal(rivalV);
+        long playerTH = flipDiagonal(playerH), rivalTH = flipDiagonal(rivalH);
+        long playerTVH = flipDiagonal(playerVH), rivalTVH = flipDiagonal(rivalVH);
+
+        int score = edge(player, rival) + edge(playerV, rivalV)
+                + edge(playerT, rivalT) + edge(playerTH, rivalTH);
+
+        score += corner2x5(player, rival) + corner2x5(playerV, rivalV)
+                + corner2x5(playerH, rivalH) + corner2x5(playerVH, rivalVH)
+                + corner2x5(playerT, rivalT) + corner2x5(playerTV, rivalTV)
+                + corner2x5(playerTH, rivalTH) + corner2x5(playerTVH, rivalTVH);
+
+        score += corner3x3(player, rival) + corner3x3(playerV, rivalV)
+                + corner3x3(playerH, rivalH) + corner3x3(playerVH, rivalVH);
+
+        score += diagonals(player, rival) + diagonals(playerH, rivalH);
+
+        return score + mobilityWeight * (bitCount(MoveGenerator.legalMoves(player, rival))
+                - bitCount(MoveGenerator.legalMoves(rival, player)));
+    }
+
+    /*=========================================================================
+                       PATTERNS, READ FROM A1 CORNER
+    =========================================================================*/
+
+    private static int row(long player, long rival, int shift, int width) {
+        int mask = (1 << width) - 1;
+        return BASE3[(int) (player >>> shift) & mask]
+                + 2 * BASE3[(int) (rival >>> shift) & mask];
+    }
+
+    private static int digit(long player, long rival, int square) {
+        return (int) ((player >>> square) & 1L) + 2 * (int) ((rival >>> square) & 1L);
+    }
+
+    private int edge(long player, long rival) {
+        return edges[row(player, rival, 0, 8)
+                + 6561 * (digit(player, rival, 9) + 3 * digit(player, rival, 14))];
+    }
+
+    private int corner2x5(long player, long rival) {
+        return corners2x5[row(player, rival, 0, 5)
+                + 243 * row(player, rival, 8, 5)];
+    }
+
+    private int corner3x3(long player, long rival) {
+        return corners3x3[row(player, rival, 0, 3)
+                + 27 * row(player, rival, 8, 3)
+                + 729 * row(player, rival, 16, 3)];
+    }
+
+    private int diagonals(long player, long rival) {
+        int score = diagonals[8][row(gather(player, DIAGONALS[8]), gather(rival, DIAGONALS[8]), 0, 8)];
+        for (int length = 4; length < 8; length++) {
+            short[] table = diagonals[length];
+            long upper = DIAGONALS[length];
+            long lower = LOWER_DIAGONALS[length];
+            score += table[row(gather(player, upper), gather(rival, upper), 8 - length, length)]
+                    + table[row(gather(player, lower), gather(rival, lower), 0, length)];
+        }
+        return score;
+    }
+
+    /**
+     * Pack squares of a diagonal into a byte, one bit per column
+     */
+    private static long gather(long pawns, long diagonal) {
+        return ((pawns & diagonal) * COLUMN_GATHER) >>> 56;
+    }
+}
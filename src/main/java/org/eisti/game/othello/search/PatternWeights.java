@@ -0,0 +1,191 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Weight tables of {@link PatternEvaluator}.
+ * <p/>
+ * A pattern is an ordered list of squares, seen from one corner of the board ;
+ * a configuration of the pattern is indexed in base 3, digit <code>i</code> being the state of
+ * square <code>i</code> : 0 empty, 1 side to move, 2 side waiting.
+ * Each pattern owns one table of <code>3^size</code> weights in {@link SearchEngine#DISC} units,
+ * shared by every symmetric instance of the pattern on the board.
+ * <p/>
+ * File format, gzipped :
+ * <pre>
+ *  int   magic, see {@link #MAGIC}
+ *  short version
+ *  short mobility weight
+ *  byte  number of patterns, then for each pattern in {@link #PATTERN_SQUARES} order :
+ *      int   number of weights
+ *      short weights...
+ * </pre>
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class PatternWeights {
+
+    /**
+     * Default weights, next to game.properties
+     */
+    public static final String DEFAULT_RESOURCE = "/pattern-weights.bin.gz";
+
+    static final int MAGIC = 0x4F505457; // OPTW
+    static final short VERSION = 1;
+
+    public static final int EDGE_X = 0;
+    public static final int CORNER_2X5 = 1;
+    public static final int CORNER_3X3 = 2;
+    public static final int DIAGONAL_8 = 3;
+    public static final int DIAGONAL_7 = 4;
+    public static final int DIAGONAL_6 = 5;
+    public static final int DIAGONAL_5 = 6;
+    public static final int DIAGONAL_4 = 7;
+
+    /**
+     * Squares of each pattern in digit order, as seen from A1 corner
+     */
+    public static final int[][] PATTERN_SQUARES = {
+            // A1 .. H1, B2, G2
+            {0, 1, 2, 3, 4, 5, 6, 7, 9, 14},
+            // A1 .. E1, A2 .. E2
+            {0, 1, 2, 3, 4, 8, 9, 10, 11, 12},
+            // A1 .. C1, A2 .. C2, A3 .. C3
+            {0, 1, 2, 8, 9, 10, 16, 17, 18},
+            // A1 .. H8
+            {0, 9, 18, 27, 36, 45, 54, 63},
+            // B1 .. H7
+            {1, 10, 19, 28, 37, 46, 55},
+            // C1 .. H6
+            {2, 11, 20, 29, 38, 47},
+            // D1 .. H5
+            {3, 12, 21, 30, 39},
+            // E1 .. H4
+            {4, 13, 22, 31}
+    };
+
+    private final short[][] tables;
+    private final short mobilityWeight;
+
+    public PatternWeights(short[][] tables, short mobilityWeight) {
+        if (tables.length != PATTERN_SQUARES.length)
+            throw new IllegalArgumentException("Expected " + PATTERN_SQUARES.length + " patterns : " + tables.length);
+        for (int pattern = 0; pattern < tables.length; pattern++)
+            if (tables[pattern].length != configurations(pattern))
+                throw new IllegalArgumentException("Wrong table size for pattern " + pattern);
+        this.tables = tables;
+        this.mobilityWeight = mobilityWeight;
+    }
+
+    /**
+     * @return number of configurations of a pattern
+     */
+    public static int configurations(int pattern) {
+        int size = 1;
+        for (int i = PATTERN_SQUARES[pattern].length; i-- > 0; )
+            size *= 3;
+        return size;
+    }
+
+    /**
+     * @return weights of given pattern, not a copy
+     */
+    final short[] table(int pattern) {
+        return tables[pattern];
+    }
+
+    public final short getMobilityWeight() {
+        return mobilityWeight;
+    }
+
+    /*=========================================================================
+                       IO
+    =========================================================================*/
+
+    /**
+     * @return weights shipped with the game
+     */
+    public static PatternWeights loadDefault() {
+        InputStream resource = PatternWeights.class.getResourceAsStream(DEFAULT_RESOURCE);
+        if (resource == null)
+            throw new Error("Missing pattern weights resource : " + DEFAULT_RESOURCE);
+        try {
+            try {
+                return read(resource);
+            } finally {
+                resource.close();
+            }
+        } catch (IOException e) {
+            throw new Error("Unexpected error while reading pattern weights", e);
+        }
+    }
+
+    public static PatternWeights read(InputStream source) throws IOException {
+        DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(source)));
+        if (input.readInt() != MAGIC)
+            throw new IOException("Not a pattern weights file");
+        short version = input.readShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported pattern weights version : " + version);
+        short mobilityWeight = input.readShort();
+        int patterns = input.readUnsignedByte();
+        if (patterns != PATTERN_SQUARES.length)
+            throw new IOException("Unexpected number of patterns : " + patterns);
+        short[][] tables = new short[patterns][];
+        for (int pattern = 0; pattern < patterns; pattern++) {
+            int size = input.readInt();
+            if (size != configurations(pattern))
+                throw new IOException("Unexpected table size for pattern " + pattern + " : " + size);
+            tables[pattern] = new short[size];
+            for (int i = 0; i < size; i++)
+                tables[pattern][i] = input.readShort();
+        }
+        return new PatternWeights(tables, mobilityWeight);
+    }
+
+    public final void write(OutputStream destination) throws IOException {
+        GZIPOutputStream compressed = new GZIPOutputStream(destination);
+        DataOutputStream output = new DataOutputStream(compressed);
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeShort(mobilityWeight);
+        output.writeByte(tables.length);
+        for (short[] table : tables) {
+            output.writeInt(table.length);
+            for (short weight : table)
+                output.writeShort(weight);
+        }
+        output.flush();
+        compressed.finish();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.Symmetry;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.eisti.game.othello.Symmetry.*;
+import static org.eisti.game.othello.search.PatternWeights.*;
+
+/**
+ * Build seed pattern weights from the classic square values, edge stability and mobility.
+ * <p/>
+ * Each square value is spread over every pattern instance covering the square,
+ * corner-adjacent squares only cost while their corner is empty.
+ * The resulting tables evaluate like a square table, they are meant as a starting point for training.
+ * <p/>
+ * Usage : <code>PatternWeightsBuilder output-file</code>
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class PatternWeightsBuilder {
+
+    //values of A1 quadrant squares, row by row
+    private static final int[] QUADRANT_VALUES = {
+            800, -150, 100, 50,
+            -150, -400, -20, -10,
+            100, -20, 10, 5,
+            50, -10, 5, 0
+    };
+    //value of a corner-adjacent square once its corner is taken
+    private static final int SETTLED_VALUE = 20;
+    //bonus of an edge pawn which can no more be reversed along its edge
+    private static final int STABLE_EDGE_VALUE = 100;
+    private static final short MOBILITY_WEIGHT = 100;
+
+    //instances of each pattern : transform from A1 corner to the board
+    private static final int[][] INSTANCES = {
+            {IDENTITY, FLIP_VERTICAL, FLIP_DIAGONAL, ROTATE_270},
+            {IDENTITY, FLIP_VERTICAL, FLIP_HORIZONTAL, ROTATE_180, FLIP_DIAGONAL, ROTATE_90, ROTATE_270, FLIP_ANTI_DIAGONAL},
+            {IDENTITY, FLIP_VERTICAL, FLIP_HORIZONTAL, ROTATE_180},
+            {IDENTITY, FLIP_HORIZONTAL},
+            {IDENTITY, FLIP_HORIZONTAL, FLIP_DIAGONAL, ROTATE_270},
+            {IDENTITY, FLIP_HORIZONTAL, FLIP_DIAGONAL, ROTATE_270},
+            {IDENTITY, FLIP_HORIZONTAL, FLIP_DIAGONAL, ROTATE_270},
+            {IDENTITY, FLIP_HORIZONTAL, FLIP_DIAGONAL, ROTATE_270}
+    };
+
+    private PatternWeightsBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage : PatternWeightsBuilder output-file");
+            System.exit(1);
+        }
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(args[0]));
+        try {
+            build().write(output);
+        } finally {
+            output.close();
+        }
+    }
+
+    public static PatternWeights build() {
+        int[] coverage = coverage();
+        short[][] tables = new short[PATTERN_SQUARES.length][];
+        for (int pattern = 0; pattern < PATTERN_SQUARES.length; pattern++) {
+            int[] squares = PATTERN_SQUARES[pattern];
+            tables[pattern] = new short[configurations(pattern)];
+            int[] states = new int[squares.length];
+            for (int index = 0; index < tables[pattern].length; index++) {
+                for (int i = 0, rest = index; i < squares.length; i++, rest /= 3)
+                    states[i] = rest % 3;
+                double weight = 0.0;
+                for (int i = 0; i < squares.length; i++)
+                    if (states[i] != 0)
+                        weight += (states[i] == 1 ? 1 : -1)
+                                * (double) squareValue(squares, states, i) / coverage[squares[i]];
+                if (pattern == EDGE_X)
+                    weight += STABLE_EDGE_VALUE * (stableEdge(states, 1) - stableEdge(states, 2));
+                tables[pattern][index] = (short) Math.round(weight);
+            }
+        }
+        return new PatternWeights(tables, MOBILITY_WEIGHT);
+    }
+
+    /**
+     * @return value of pattern's i-th square, depending on its corner when the pattern holds it
+     */
+    private static int squareValue(int[] squares, int[] states, int i) {
+        int square = squares[i];
+        int row = square >>> 3;
+        int column = square & 7;
+        int quadrantRow = row < 4 ? row : 7 - row;
+        int quadrantColumn = column < 4 ? column : 7 - column;
+        int value = QUADRANT_VALUES[quadrantRow * 4 + quadrantColumn];
+        if (quadrantRow + quadrantColumn != 0 && quadrantRow <= 1 && quadrantColumn <= 1) {
+            int corner = (row < 4 ? 0 : 56) | (column < 4 ? 0 : 7);
+            for (int j = 0; j < squares.length; j++)
+                if (squares[j] == corner && states[j] != 0)
+                    return SETTLED_VALUE;
+        }
+        return value;
+    }
+
+    /**
+     * @return pawns of given state on the first row of an edge pattern, linked to a corner of that state
+     */
+    private static int stableEdge(int[] states, int state) {
+        int stable = 0;
+        int left = 0;
+        while (left < 8 && states[left] == state)
+            left++;
+        stable += left;
+        if (left < 8) {
+            int right = 7;
+            while (right > left && states[right] == state)
+                right--;
+            stable += 7 - right;
+        }
+        return stable;
+    }
+
+    /**
+     * @return number of pattern instances covering each square
+     */
+    private static int[] coverage() {
+        int[] coverage = new int[64];
+        for (int pattern = 0; pattern < PATTERN_SQUARES.length; pattern++)
+            for (int instance : INSTANCES[pattern])
+                for (int square : PATTERN_SQUARES[pattern])
+                    coverage[Symmetry.square(square, instance)]++;
+        return coverage;
+    }
+}
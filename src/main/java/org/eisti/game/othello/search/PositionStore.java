@@ -0,0 +1,524 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.Squares;
+import org.eisti.game.othello.Symmetry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.eisti.game.othello.search.TranspositionTable.*;
+
+/**
+ * Position results kept on disk from one run to another : exact endgame scores and deep search scores.
+ * <p/>
+ * Three files share the store path :
+ * <ul>
+ * <li>the log, <code>path</code>, append-only records (key, data, checksum), the only durable state ;</li>
+ * <li>the index, <code>path.index</code>, a memory-mapped open-addressing table of (key, data) slots
+ * answering probes without reading the log, rebuilt from the log unless the store was closed cleanly ;</li>
+ * <li>the lock, <code>path.lock</code>, held while the store is open so that two processes never share it.</li>
+ * </ul>
+ * A crash may leave a torn record at the end of the log : it fails its checksum on recovery
+ * and the log is truncated right before it. Data use {@link TranspositionTable} layout, generation aside.
+ * <p/>
+ * The number of positions is capped : past the cap the log is compacted and the shallowest positions
+ * are evicted, down to three quarters of the cap. The log is compacted as well once it holds
+ * more stale records than live ones.
+ * <p/>
+ * Appends are not forced to disk one by one, see {@link #flush()}. Methods are synchronized,
+ * a store is meant to be probed at the root of a search, not inside.
+ * <p/>
+ * File formats, big endian :
+ * <pre>
+ *  log   : int magic, int version, then records of {@link #RECORD_SIZE} bytes :
+ *          long key, long data, long checksum
+ *  index : int magic, int version, int capacity, int clean flag, long indexed log length,
+ *          int number of positions, int reserved, then capacity slots : long key, long data
+ * </pre>
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class PositionStore
+        implements Closeable {
+
+    /**
+     * Highest number of positions of a store
+     */
+    public static final int MAX_ENTRIES = 1 << 24;
+
+    static final int MAGIC = 0x4F505354; // OPST
+    static final int VERSION = 1;
+    static final int LOG_HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 24;
+    static final int INDEX_HEADER_SIZE = 32;
+    static final int SLOT_SIZE = 16;
+
+    private static final int DIRTY = 0;
+    private static final int CLEAN = 1;
+    private static final long CHECKSUM_SALT = 0x5354524F4B45L;
+    //records read or written at once
+    private static final int CHUNK_RECORDS = 4096;
+
+    private final File logFile;
+    private final RandomAccessFile lockFile;
+    private final File indexFile;
+    private final int maxEntries;
+    private final int capacity;
+    private final int slotMask;
+
+    private RandomAccessFile log;
+    private FileChannel logChannel;
+    private long logLength;
+    private RandomAccessFile indexAccess;
+    private MappedByteBuffer index;
+    private int entries;
+
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+    private PositionStore(File path, int maxEntries, RandomAccessFile lockFile) throws IOException {
+        this.logFile = path;
+        this.lockFile = lockFile;
+        this.indexFile = new File(path.getPath() + ".index");
+        this.maxEntries = maxEntries;
+        //load factor stays under one half
+        this.capacity = Integer.highestOneBit(maxEntries) << 2;
+        this.slotMask = capacity - 1;
+
+        try {
+            openLog();
+            if (!openIndex())
+                recover();
+            markIndex(DIRTY);
+            if (entries > maxEntries)
+                compact(true);
+        } catch (IOException e) {
+            //lock file is closed by the caller
+            closeQuietly(indexAccess);
+            closeQuietly(log);
+            throw e;
+        } catch (RuntimeException e) {
+            closeQuietly(indexAccess);
+            closeQuietly(log);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null)
+            return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            //already failing, first error is the one reported
+        }
+    }
+
+    /**
+     * Open a store, creating its files if needed
+     *
+     * @param path       log file, index and lock files are created next to it
+     * @param maxEntries maximum number of positions kept
+     * @throws IOException if the store is used by another process or is not a position store
+     */
+    public static PositionStore open(File path, int maxEntries) throws IOException {
+        if (maxEntries <= 0 || maxEntries > MAX_ENTRIES)
+            throw new IllegalArgumentException("Invalid number of positions : " + maxEntries);
+        RandomAccessFile lockFile = new RandomAccessFile(path.getPath() + ".lock", "rw");
+        try {
+            FileLock lock;
+            try {
+                lock = lockFile.getChannel().tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null)
+                throw new IOException("Position store already in use : " + path);
+            return new PositionStore(path, maxEntries, lockFile);
+        } catch (IOException e) {
+            //releases the lock too
+            closeQuietly(lockFile);
+            throw e;
+        } catch (RuntimeException e) {
+            closeQuietly(lockFile);
+            throw e;
+        }
+    }
+
+    /*=========================================================================
+                       POSITIONS
+    =========================================================================*/
+
+    /**
+     * @return number of positions
+     */
+    public synchronized final int size() {
+        return entries;
+    }
+
+    public final int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @param key position key
+     * @return data in {@link TranspositionTable} layout, or {@link TranspositionTable#MISS}
+     */
+    public synchronized final long probe(long key) {
+        return dataAt(find(key));
+    }
+
+    /**
+     * Record a position result, unless a deeper one, or an exact one as deep, is already known
+     *
+     * @return whether result was recorded
+     */
+    public synchronized final boolean store(long key, int depth, int bound, int score, int move) throws IOException {
+        int slot = find(key);
+        long known = dataAt(slot);
+        long data = pack(score, depth, bound, move, 0);
+        if (known != MISS && !replaces(known, data))
+            return false;
+
+        append(key, data);
+        writeSlot(slot, key, data);
+        if (known == MISS)
+            entries++;
+
+        if (entries > maxEntries)
+            compact(true);
+        else if (recordCount() > 2L * maxEntries)
+            compact(false);
+        return true;
+    }
+
+    private static boolean replaces(long known, long data) {
+        if (depthOf(data) != depthOf(known))
+            return depthOf(data) > depthOf(known);
+        return data != known && (boundOf(data) == EXACT || boundOf(known) != EXACT);
+    }
+
+    /**
+     * Exact result of a position or of a symmetric one, its move mapped back on position
+     *
+     * @param minDepth shallowest result accepted
+     * @return stored result with no node nor time, null if none
+     */
+    public final SearchResult probe(SearchPosition position, int minDepth) {
+        long canonical = Symmetry.canonical(position);
+        long entry = probe(Symmetry.keyOf(canonical));
+        if (entry == MISS || boundOf(entry) != EXACT || depthOf(entry) < minDepth)
+            return null;
+        int move = Symmetry.square(moveOf(entry), Symmetry.inverse(Symmetry.transformOf(canonical)));
+        long moves = position.legalMoves();
+        boolean legal = move == Squares.PASS
+                ? moves == 0L
+                : move < Squares.SQUARES_COUNT && (moves & 1L << move) != 0L;
+        //guards against key collisions
+        return legal
+                ? new SearchResult(move, scoreOf(entry), depthOf(entry), 0L, 0L)
+                : null;
+    }
+
+    /**
+     * Record result of a search as exact, under position canonical key.
+     * Results without depth (forced or book moves) are ignored.
+     */
+    public final void store(SearchPosition position, SearchResult result) {
+        if (result.getDepth() == 0)
+            return;
+        long canonical = Symmetry.canonical(position);
+        try {
+            store(Symmetry.keyOf(canonical), result.getDepth(), EXACT, result.getScore(),
+                    Symmetry.square(result.getBestMove(), Symmetry.transformOf(canonical)));
+        } catch (IOException e) {
+            throw new Error("Unexpected error while writing position store", e);
+        }
+    }
+
+    /**
+     * Force appended records to disk
+     */
+    public synchronized final void flush() throws IOException {
+        logChannel.force(false);
+    }
+
+    /**
+     * Force pending writes and release the store, index is reused by next opening
+     */
+    @Override
+    public synchronized final void close() throws IOException {
+        try {
+            logChannel.force(false);
+            markIndex(CLEAN);
+        } finally {
+            try {
+                indexAccess.close();
+                log.close();
+            } finally {
+                lockFile.close();
+            }
+        }
+    }
+
+    /*=========================================================================
+                       INDEX
+    =========================================================================*/
+
+    private int find(long key) {
+        //low bits of canonical keys hold no entropy
+        int slot = (int) (key >>> 32) & slotMask;
+        while (dataAt(slot) != MISS && keyAt(slot) != key)
+            slot = (slot + 1) & slotMask;
+        return slot;
+    }
+
+    private long keyAt(int slot) {
+        return index.getLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE);
+    }
+
+    private long dataAt(int slot) {
+        return index.getLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 8);
+    }
+
+    private void writeSlot(int slot, long key, long data) {
+        index.putLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE, key);
+        index.putLong(INDEX_HEADER_SIZE + slot * SLOT_SIZE + 8, data);
+    }
+
+    /**
+     * @return whether index was closed cleanly along with current log
+     */
+    private boolean openIndex() throws IOException {
+        long length = INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE;
+        boolean existing = indexFile.length() == length;
+        indexAccess = new RandomAccessFile(indexFile, "rw");
+        if (!existing) {
+            indexAccess.setLength(0L);
+            indexAccess.setLength(length);
+        }
+        index = indexAccess.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, length);
+        if (existing
+                && index.getInt(0) == MAGIC
+                && index.getInt(4) == VERSION
+                && index.getInt(8) == capacity
+                && index.getInt(12) == CLEAN
+                && index.getLong(16) == logLength) {
+            entries = index.getInt(24);
+            return true;
+        }
+        return false;
+    }
+
+    private void markIndex(int state) {
+        index.putInt(0, MAGIC);
+        index.putInt(4, VERSION);
+        index.putInt(8, capacity);
+        index.putLong(16, logLength);
+        index.putInt(24, entries);
+        if (state == CLEAN)
+            //slots reach the disk before the flag
+            index.force();
+        index.putInt(12, state);
+        index.force();
+    }
+
+    private void clearIndex() {
+        for (int slot = 0; slot < capacity; slot++)
+            writeSlot(slot, 0L, MISS);
+        entries = 0;
+    }
+
+    /**
+     * Rebuild index from the log, truncating it after its last valid record
+     */
+    private void recover() throws IOException {
+        clearIndex();
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_RECORDS * RECORD_SIZE);
+        long position = LOG_HEADER_SIZE;
+        scan:
+        while (true) {
+            chunk.clear();
+            int read = 0;
+            while (chunk.hasRemaining()) {
+                int count = logChannel.read(chunk, position + read);
+                if (count < 0)
+                    break;
+                read += count;
+            }
+            for (int offset = 0; offset + RECORD_SIZE <= read; offset += RECORD_SIZE) {
+                long key = chunk.getLong(offset);
+                long data = chunk.getLong(offset + 8);
+                if (data == MISS || chunk.getLong(offset + 16) != checksum(key, data))
+                    break scan;
+                int slot = find(key);
+                if (dataAt(slot) == MISS)
+                    entries++;
+                //a record is appended only when it replaces the previous one
+                writeSlot(slot, key, data);
+                position += RECORD_SIZE;
+            }
+            if (read < chunk.capacity())
+                break;
+        }
+        if (position != logLength) {
+            logChannel.truncate(position);
+            logLength = position;
+        }
+    }
+
+    /*=========================================================================
+                       LOG
+    =========================================================================*/
+
+    private void openLog() throws IOException {
+        log = new RandomAccessFile(logFile, "rw");
+        logChannel = log.getChannel();
+        logLength = logChannel.size();
+        if (logLength < LOG_HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            logChannel.truncate(0L);
+            writeFully(logChannel, header, 0L);
+            logLength = LOG_HEADER_SIZE;
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+        logChannel.read(header, 0L);
+        if (header.getInt(0) != MAGIC)
+            throw new IOException("Not a position store : " + logFile);
+        if (header.getInt(4) != VERSION)
+            throw new IOException("Unsupported position store version : " + header.getInt(4));
+    }
+
+    private long recordCount() {
+        return (logLength - LOG_HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    private void append(long key, long data) throws IOException {
+        record.clear();
+        record.putLong(key).putLong(data).putLong(checksum(key, data)).flip();
+        writeFully(logChannel, record, logLength);
+        logLength += RECORD_SIZE;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     * A zeroed record, as left by some file systems after a crash, never matches
+     */
+    private static long checksum(long key, long data) {
+        long h = (key ^ CHECKSUM_SALT) * 0x9E3779B97F4A7C15L ^ data;
+        h = (h ^ (h >>> 31)) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 29) ^ CHECKSUM_SALT;
+    }
+
+    /**
+     * Rewrite the log with live positions only, through a temporary file atomically moved over the log
+     *
+     * @param evict whether shallowest positions are dropped down to three quarters of the cap
+     */
+    private void compact(boolean evict) throws IOException {
+        int kept = evict ? maxEntries - maxEntries / 4 : entries;
+        //positions at cut depth are kept while there is room
+        int cutDepth = 0;
+        int roomAtCut = Integer.MAX_VALUE;
+        if (kept < entries) {
+            int[] depths = new int[256];
+            for (int slot = 0; slot < capacity; slot++)
+                if (dataAt(slot) != MISS)
+                    depths[depthOf(dataAt(slot))]++;
+            int deeper = 0;
+            cutDepth = 255;
+            while (deeper + depths[cutDepth] < kept)
+                deeper += depths[cutDepth--];
+            roomAtCut = kept - deeper;
+        }
+
+        File compacted = new File(logFile.getPath() + ".tmp");
+        RandomAccessFile output = new RandomAccessFile(compacted, "rw");
+        long[] keys = new long[Math.min(kept, entries)];
+        long[] datas = new long[keys.length];
+        int count = 0;
+        try {
+            output.setLength(0L);
+            FileChannel channel = output.getChannel();
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_RECORDS * RECORD_SIZE);
+            chunk.putInt(MAGIC).putInt(VERSION);
+            long position = 0L;
+            for (int slot = 0; slot < capacity; slot++) {
+                long data = dataAt(slot);
+                if (data == MISS || depthOf(data) < cutDepth)
+                    continue;
+                if (depthOf(data) == cutDepth && roomAtCut-- <= 0)
+                    continue;
+                long key = keyAt(slot);
+                keys[count] = key;
+                datas[count++] = data;
+                if (chunk.remaining() < RECORD_SIZE) {
+                    chunk.flip();
+                    writeFully(channel, chunk, position);
+                    position += chunk.limit();
+                    chunk.clear();
+                }
+                chunk.putLong(key).putLong(data).putLong(checksum(key, data));
+            }
+            chunk.flip();
+            writeFully(channel, chunk, position);
+            channel.force(false);
+        } finally {
+            output.close();
+        }
+
+        log.close();
+        try {
+            Files.move(compacted.toPath(), logFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            //file system cannot rename atomically, a crash in between leaves the compacted log aside
+            Files.move(compacted.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        openLog();
+
+        clearIndex();
+        for (int i = 0; i < count; i++)
+            writeSlot(find(keys[i]), keys[i], datas[i]);
+        entries = count;
+        markIndex(DIRTY);
+    }
+}
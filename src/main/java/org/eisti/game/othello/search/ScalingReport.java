@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.SearchPosition;
+
+import java.util.Random;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+
+/**
+ * Nodes per second of {@link ParallelSearch} from one thread up to N.
+ * <p/>
+ * Usage : <code>ScalingReport [maxThreads] [millisPerPosition] [positions]</code>,
+ * every thread count searches the same random midgame positions for a fixed time.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class ScalingReport {
+
+    private static final int TABLE_SIZE_IN_MB = 64;
+    private static final int OPENING_PLIES = 20;
+    private static final long SEED = 0x5EEDL;
+
+    private ScalingReport() {
+    }
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0
+                ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        long millisPerPosition = args.length > 1 ? Long.parseLong(args[1]) : 1000L;
+        int positionCount = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        SearchPosition[] positions = randomPositions(positionCount, new Random(SEED));
+
+        System.out.println("threads\tnodes/s\tspeedup\tefficiency");
+        long reference = 0L;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            ParallelSearch search = new ParallelSearch(threads, TABLE_SIZE_IN_MB);
+            search.setTimeLimit(millisPerPosition);
+            long nodes = 0L;
+            long millis = 0L;
+            try {
+                for (SearchPosition position : positions) {
+                    search.getTable().clear();
+                    SearchResult result = search.search(position);
+                    nodes += result.getNodes();
+                    millis += result.getElapsedMillis();
+                }
+            } finally {
+                search.shutdown();
+            }
+            long nodesPerSecond = nodes * 1000L / Math.max(1L, millis);
+            if (reference == 0L)
+                reference = Math.max(1L, nodesPerSecond);
+            double speedup = (double) nodesPerSecond / reference;
+            System.out.println(String.format("%d\t%d\t%.2f\t%.2f",
+                    threads, nodesPerSecond, speedup, speedup / threads));
+        }
+    }
+
+    /**
+     * 1, 2, 4, ... then maxThreads
+     */
+    private static int nextThreadCount(int threads, int maxThreads) {
+        return threads < maxThreads && threads * 2 > maxThreads
+                ? maxThreads
+                : threads * 2;
+    }
+
+    private static SearchPosition[] randomPositions(int count, Random random) {
+        SearchPosition[] positions = new SearchPosition[count];
+        for (int i = 0; i < count; ) {
+            SearchPosition position = SearchPosition.initial();
+            for (int ply = 0; ply < OPENING_PLIES; ply++) {
+                long moves = position.legalMoves();
+                if (moves == 0L) {
+                    position.makePass();
+                    moves = position.legalMoves();
+                    if (moves == 0L)
+                        break;
+                }
+                for (int skip = random.nextInt(bitCount(moves)); skip-- > 0; )
+                    moves &= moves - 1;
+                position.makeMove(numberOfTrailingZeros(moves));
+            }
+            if (position.legalMoves() != 0L)
+                positions[i++] = position;
+        }
+        return positions;
+    }
+}
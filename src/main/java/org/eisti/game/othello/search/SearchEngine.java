@@ -0,0 +1,464 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.OthelloContext;
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.Squares;
+import org.eisti.game.othello.book.OpeningBook;
+import org.eisti.labs.game.Ply;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+import static org.eisti.game.othello.search.TranspositionTable.*;
+
+/**
+ * Alpha-beta search engine.
+ * <p/>
+ * Negamax with principal variation search, driven by iterative deepening
+ * with aspiration windows around previous iteration score.
+ * Positions are explored in place on a {@link SearchPosition} and remembered in a {@link TranspositionTable}.
+ * <p/>
+ * Search stops at maximum depth, or as soon as its node or time budget is spent,
+ * the best move of the last completed iteration is then returned.
+ * Close to the end of the game, the {@link EndgameSolver} is tried first within the same budget.
+ * An engine is not thread safe, one search at a time.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class SearchEngine {
+
+    /**
+     * Score of one pawn
+     */
+    public static final int DISC = 100;
+    /**
+     * Bound above any reachable score
+     */
+    public static final int INFINITY = Short.MAX_VALUE;
+
+    static final int MAX_PLY = 128;
+
+    private static final int ASPIRATION_WINDOW = DISC / 2;
+    //nodes between two budget checks
+    private static final int CHECK_PERIOD = 0x3FF;
+
+    /**
+     * Default number of empty squares from which the game is solved exactly
+     */
+    public static final int DEFAULT_ENDGAME_EMPTIES = 20;
+
+    private final TranspositionTable table;
+    private final EndgameSolver solver;
+    private Evaluator evaluator = new PatternEvaluator();
+    private OpeningBook book;
+    private PositionStore store;
+    private int endgameEmpties = DEFAULT_ENDGAME_EMPTIES;
+
+    private int maxDepth = Squares.SQUARES_COUNT;
+    private long nodeLimit = Long.MAX_VALUE;
+    private long timeLimit = Long.MAX_VALUE;
+
+    //search state
+    private final int[][] moveLists = new int[MAX_PLY][Squares.SQUARES_COUNT];
+    private final MoveOrdering ordering = new MoveOrdering(MAX_PLY);
+    private long nodes;
+    private long deadline;
+    private int rootBestMove;
+    private volatile boolean stopped;
+
+    //parallel search helper rank, 0 for a main search
+    private int helperIndex;
+
+    public SearchEngine(int tableSizeInMB) {
+        this(new TranspositionTable(tableSizeInMB));
+    }
+
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+        this.solver = new EndgameSolver(table);
+    }
+
+    /*=========================================================================
+                       CONFIGURATION
+    =========================================================================*/
+
+    public final void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    public final Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public final TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * @param book opening book played before searching, null for none
+     */
+    public final void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * @param store results recorded after each search and reused when deep enough, null for none
+     */
+    public final void setPositionStore(PositionStore store) {
+        this.store = store;
+    }
+
+    /**
+     * @param maxDepth deepest iteration, in plies
+     */
+    public final void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_PLY - 1));
+    }
+
+    public final int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param endgameEmpties number of empty squares from which exact solving is tried, 0 to disable
+     */
+    public final void setEndgameEmpties(int endgameEmpties) {
+        this.endgameEmpties = endgameEmpties;
+    }
+
+    /**
+     * @param nodeLimit maximum number of nodes per search
+     */
+    public final void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * @param timeLimit maximum duration of a search, in milliseconds
+     */
+    public final void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Abort current search, may be called from another thread
+     */
+    public final void stop() {
+        stopped = true;
+        solver.stop();
+    }
+
+    /**
+     * Forget everything learnt by previous searches, transposition table and move ordering,
+     * so that next searches give the same results as a new engine's. Settings are kept.
+     */
+    public final void reset() {
+        table.clear();
+        ordering.clear();
+    }
+
+    /*=========================================================================
+                       SEARCH
+    =========================================================================*/
+
+    /**
+     * @param context game context
+     * @return best ply for context's active player
+     */
+    public final Ply findBestPly(OthelloContext context) {
+        return search(SearchPosition.of(context)).getBestPly();
+    }
+
+    /**
+     * A book move is returned at once with depth 0 and its book score,
+     * a forced move, or pass, with depth 0 and no score,
+     * a stored result as deep as the search would go with its stored depth and score.
+     *
+     * @param root position to search, left unchanged
+     * @return best move found within budget
+     */
+    public final SearchResult search(SearchPosition root) {
+        if (book != null) {
+            SearchResult known = book.probe(root);
+            if (known != null)
+                return known;
+        }
+        if (store != null) {
+            SearchResult known = store.probe(root, Math.min(maxDepth, bitCount(root.getEmptySquares())));
+            if (known != null)
+                return known;
+        }
+        table.newSearch();
+        prepare();
+        SearchResult result = run(root);
+        if (store != null)
+            store.store(root, result);
+        return result;
+    }
+
+    /**
+     * Reset search state, before the search thread starts so that an early {@link #stop()} is not lost
+     */
+    final void prepare() {
+        nodes = 0L;
+        stopped = false;
+        solver.prepare();
+        ordering.newSearch();
+    }
+
+    /**
+     * @param helperIndex rank of this engine among parallel search threads, 0 for the main one
+     */
+    final void setHelperIndex(int helperIndex) {
+        this.helperIndex = helperIndex;
+    }
+
+    final SearchResult run(SearchPosition root) {
+        long start = System.currentTimeMillis();
+        deadline = timeLimit == Long.MAX_VALUE ? Long.MAX_VALUE : start + timeLimit;
+
+        SearchPosition position = root.copy();
+        long moves = position.legalMoves();
+        if (bitCount(moves) <= 1) {
+            //nothing to think about
+            int move = moves == 0L ? Squares.PASS : numberOfTrailingZeros(moves);
+            return new SearchResult(move, 0, 0, 0L, System.currentTimeMillis() - start);
+        }
+
+        //a stop may come before the solve starts, the solver must not run unbounded then
+        if (!stopped && bitCount(position.getEmptySquares()) <= endgameEmpties) {
+            //half of the budget, midgame search gets the remaining if solving fails
+            solver.setNodeLimit(nodeLimit == Long.MAX_VALUE ? nodeLimit : nodeLimit / 2);
+            solver.setTimeLimit(timeLimit == Long.MAX_VALUE ? timeLimit : timeLimit / 2);
+            SearchResult solved = solver.search(position);
+            nodes += solver.getNodes();
+            if (solved != null)
+                return new SearchResult(solved.getBestMove(), solved.getScore(), solved.getDepth(),
+                        nodes, System.currentTimeMillis() - start);
+        }
+
+        int bestMove = numberOfTrailingZeros(moves);
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        //half of the helpers skip first iteration, so that threads do not stay in step
+        for (int depth = 1 + (helperIndex & 1); depth <= maxDepth; depth++) {
+            int delta = ASPIRATION_WINDOW;
+            int alpha = completedDepth == 0 ? -INFINITY : Math.max(-INFINITY, bestScore - delta);
+            int beta = completedDepth == 0 ? INFINITY : Math.min(INFINITY, bestScore + delta);
+            int score;
+            while (true) {
+                score = searchRoot(position, depth, alpha, beta, bestMove);
+                if (stopped)
+                    break;
+                if (score <= alpha && alpha > -INFINITY) {
+                    alpha = Math.max(-INFINITY, score - delta);
+                } else if (score >= beta && beta < INFINITY) {
+                    beta = Math.min(INFINITY, score + delta);
+                } else {
+                    break;
+                }
+                delta *= 2;
+            }
+            if (stopped)
+                break;
+
+            bestScore = score;
+            bestMove = rootBestMove;
+            completedDepth = depth;
+
+            //whole game tree has been seen
+            if (depth >= bitCount(position.getEmptySquares()))
+                break;
+        }
+
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes,
+                System.currentTimeMillis() - start);
+    }
+
+    private int searchRoot(SearchPosition position, int depth, int alpha, int beta, int firstMove) {
+        int[] moveList = moveLists[0];
+        int count = orderRootMoves(position.legalMoves(), firstMove, moveList);
+        if (helperIndex > 0)
+            rotateMoves(moveList, count, helperIndex);
+
+        int bestScore = -INFINITY;
+        rootBestMove = moveList[0];
+        for (int i = 0; i < count; i++) {
+            int move = moveList[i];
+            long undo = position.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -pvs(position, depth - 1, -beta, -alpha, 1);
+            } else {
+                score = -pvs(position, depth - 1, -alpha - 1, -alpha, 1);
+                if (score > alpha && score < beta)
+                    score = -pvs(position, depth - 1, -beta, -alpha, 1);
+            }
+            position.unmakeMove(move, undo);
+            if (stopped)
+                return bestScore;
+
+            if (score > bestScore) {
+                bestScore = score;
+                rootBestMove = move;
+                if (score > alpha)
+                    alpha = score;
+                if (alpha >= beta)
+                    break;
+            }
+        }
+        return bestScore;
+    }
+
+    private int pvs(SearchPosition position, int depth, int alpha, int beta, int ply) {
+        if ((++nodes & CHECK_PERIOD) == 0L)
+            checkBudget();
+        if (stopped)
+            return 0;
+
+        long player = position.getPlayerPawns();
+        long rival = position.getRivalPawns();
+        long moves = position.legalMoves();
+
+        if (moves == 0L) {
+            if (position.rivalLegalMoves() == 0L)
+                return finalScore(player, rival);
+            if (ply >= MAX_PLY - 1)
+                return evaluator.evaluate(player, rival);
+            //a pass does not consume depth
+            position.makePass();
+            int score = -pvs(position, depth, -beta, -alpha, ply + 1);
+            position.unmakePass();
+            return score;
+        }
+
+        if (depth <= 0 || ply >= MAX_PLY - 1)
+            return evaluator.evaluate(player, rival);
+
+        long key = position.getKey();
+        long entry = table.probe(key);
+        int hashMove = NO_MOVE;
+        if (entry != MISS) {
+            hashMove = moveOf(entry);
+            if (depthOf(entry) >= depth) {
+                int hashScore = scoreOf(entry);
+                int bound = boundOf(entry);
+                if (bound == EXACT
+                        || (bound == LOWER_BOUND && hashScore >= beta)
+                        || (bound == UPPER_BOUND && hashScore <= alpha))
+                    return hashScore;
+            }
+        }
+
+        int[] moveList = moveLists[ply];
+        int count = ordering.order(player, rival, moves, hashMove, depth, ply, moveList);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            int move = moveList[i];
+            long undo = position.makeMove(move);
+            int score;
+            if (i == 0) {
+                score = -pvs(position, depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -pvs(position, depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta)
+                    score = -pvs(position, depth - 1, -beta, -alpha, ply + 1);
+            }
+            position.unmakeMove(move, undo);
+            if (stopped)
+                return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha)
+                    alpha = score;
+                if (alpha >= beta) {
+                    ordering.recordCutoff(move, depth, ply);
+                    break;
+                }
+            }
+        }
+
+        int bound = bestScore <= originalAlpha
+                ? UPPER_BOUND
+                : bestScore >= beta ? LOWER_BOUND : EXACT;
+        table.store(key, depth, bound, bestScore, bound == UPPER_BOUND ? NO_MOVE : bestMove);
+        return bestScore;
+    }
+
+    /**
+     * Fill root move list, given move first if legal
+     *
+     * @return number of moves
+     */
+    private static int orderRootMoves(long moves, int firstMove, int[] moveList) {
+        int count = 0;
+        if (firstMove < Squares.SQUARES_COUNT && (moves & (1L << firstMove)) != 0L) {
+            moveList[count++] = firstMove;
+            moves &= ~(1L << firstMove);
+        }
+        for (; moves != 0L; moves &= moves - 1)
+            moveList[count++] = numberOfTrailingZeros(moves);
+        return count;
+    }
+
+    /**
+     * Rotate every move but the first one, helpers thus explore root moves in different orders
+     */
+    private static void rotateMoves(int[] moveList, int count, int rotation) {
+        for (int shift = rotation % Math.max(1, count - 1); shift-- > 0; ) {
+            int second = moveList[1];
+            System.arraycopy(moveList, 2, moveList, 1, count - 2);
+            moveList[count - 1] = second;
+        }
+    }
+
+    /**
+     * Exact score of a finished game, empty squares go to the winner
+     */
+    static int finalScore(long player, long rival) {
+        int difference = bitCount(player) - bitCount(rival);
+        int empties = bitCount(~(player | rival));
+        if (difference > 0)
+            difference += empties;
+        else if (difference < 0)
+            difference -= empties;
+        return difference * DISC;
+    }
+
+    private void checkBudget() {
+        if (nodes >= nodeLimit
+                || (deadline != Long.MAX_VALUE && System.currentTimeMillis() >= deadline))
+            stopped = true;
+    }
+
+    public final long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.Squares;
+import org.eisti.labs.game.Ply;
+
+/**
+ * Outcome of a search
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedMillis;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long elapsedMillis) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return square index of best move, or {@link Squares#PASS}
+     */
+    public final int getBestMove() {
+        return bestMove;
+    }
+
+    public final Ply getBestPly() {
+        return Squares.ply(bestMove);
+    }
+
+    /**
+     * @return score of best move, see {@link Evaluator}
+     */
+    public final int getScore() {
+        return score;
+    }
+
+    /**
+     * @return depth of last completed iteration
+     */
+    public final int getDepth() {
+        return depth;
+    }
+
+    public final long getNodes() {
+        return nodes;
+    }
+
+    public final long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public final long getNodesPerSecond() {
+        return elapsedMillis == 0L
+                ? nodes * 1000L
+                : nodes * 1000L / elapsedMillis;
+    }
+
+    @Override
+    public final String toString() {
+        return "best=" + (bestMove == Squares.PASS ? "PASS" : Squares.coordinate(bestMove))
+                + " score=" + score
+                + " depth=" + depth
+                + " nodes=" + nodes
+                + " time=" + elapsedMillis + "ms";
+    }
+}
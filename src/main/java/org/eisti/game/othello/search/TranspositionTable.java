@@ -0,0 +1,252 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.Squares;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size transposition table, shared without lock between search threads.
+ * <p/>
+ * Entries live in a flat <code>long[]</code> : each one is a pair (key XOR data, data),
+ * a torn write between two threads thus fails key verification instead of returning garbage.
+ * A bucket holds two entries, a depth-preferred one and an always-replace one.
+ * <p/>
+ * Data layout of an entry :
+ * <pre>
+ *  bits  0-15 : score (signed)
+ *  bits 16-23 : depth
+ *  bits 24-25 : bound type, never 0 for a stored entry
+ *  bits 26-32 : move (square index, {@link #PASS_MOVE} or {@link #NO_MOVE})
+ *  bits 33-40 : search generation
+ * </pre>
+ * Counters are plain fields updated without synchronization, they are statistics, not exact values.
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public final class TranspositionTable {
+
+    public static final int LOWER_BOUND = 0x1;
+    public static final int UPPER_BOUND = 0x2;
+    public static final int EXACT = 0x3;
+
+    public static final int PASS_MOVE = Squares.PASS;
+    public static final int NO_MOVE = 0x7F;
+
+    /**
+     * Returned by {@link #probe(long)} when position is not stored
+     */
+    public static final long MISS = 0L;
+
+    //longs per entry / per bucket
+    private static final int ENTRY_SIZE = 2;
+    private static final int BUCKET_SIZE = 2 * ENTRY_SIZE;
+    private static final int BUCKET_BYTES = BUCKET_SIZE * 8;
+
+    private final long[] table;
+    private final int bucketMask;
+    private int generation;
+
+    private long probes;
+    private long hits;
+    private long stores;
+    private long collisions;
+
+    /**
+     * @param sizeInMB table size, rounded down to a power of two buckets
+     */
+    public TranspositionTable(int sizeInMB) {
+        if (sizeInMB <= 0)
+            throw new IllegalArgumentException("Table size must be positive : " + sizeInMB);
+        long buckets = Long.highestOneBit(((long) sizeInMB << 20) / BUCKET_BYTES);
+        // array length is bounded by Integer.MAX_VALUE
+        buckets = Math.min(buckets, 1L << 28);
+        this.table = new long[(int) buckets * BUCKET_SIZE];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    /*=========================================================================
+                       ENTRY DATA
+    =========================================================================*/
+
+    public static int scoreOf(long entry) {
+        return (short) entry;
+    }
+
+    public static int depthOf(long entry) {
+        return (int) (entry >>> 16) & 0xFF;
+    }
+
+    public static int boundOf(long entry) {
+        return (int) (entry >>> 24) & 0x3;
+    }
+
+    /**
+     * @return square index, {@link #PASS_MOVE} or {@link #NO_MOVE}
+     */
+    public static int moveOf(long entry) {
+        return (int) (entry >>> 26) & 0x7F;
+    }
+
+    private static int generationOf(long entry) {
+        return (int) (entry >>> 33) & 0xFF;
+    }
+
+    static long pack(int score, int depth, int bound, int move, int generation) {
+        return (score & 0xFFFFL)
+                | ((long) depth << 16)
+                | ((long) bound << 24)
+                | ((long) (move & 0x7F) << 26)
+                | ((long) generation << 33);
+    }
+
+    /*=========================================================================
+                       TABLE OPERATIONS
+    =========================================================================*/
+
+    private int bucketOf(long key) {
+        //high bits are left for verification
+        return ((int) key & bucketMask) * BUCKET_SIZE;
+    }
+
+    /**
+     * @param key position key
+     * @return entry data, or {@link #MISS}
+     */
+    public final long probe(long key) {
+        probes++;
+        int bucket = bucketOf(key);
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i += ENTRY_SIZE) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != MISS) {
+                hits++;
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * @param key   position key
+     * @param depth remaining search depth, clamped to [0, 255]
+     * @param bound one of LOWER_BOUND, UPPER_BOUND or EXACT
+     * @param score position score, clamped to a signed short
+     * @param move  best move, {@link #PASS_MOVE} or {@link #NO_MOVE}
+     */
+    public final void store(long key, int depth, int bound, int score, int move) {
+        stores++;
+        depth = Math.max(0, Math.min(depth, 0xFF));
+        score = Math.max(Short.MIN_VALUE, Math.min(score, Short.MAX_VALUE));
+
+        int bucket = bucketOf(key);
+        int preferred = bucket;
+        int always = bucket + ENTRY_SIZE;
+
+        long preferredData = table[preferred + 1];
+        boolean samePosition = (table[preferred] ^ preferredData) == key;
+
+        //keep the best move known when a bound without move is stored
+        if (move == NO_MOVE && samePosition)
+            move = moveOf(preferredData);
+
+        long data = pack(score, depth, bound, move, generation);
+
+        if (samePosition
+                || preferredData == MISS
+                || depth >= depthOf(preferredData)
+                || generationOf(preferredData) != generation) {
+            if (!samePosition && preferredData != MISS) {
+                collisions++;
+                //demote previous deep entry
+                table[always] = table[preferred];
+                table[always + 1] = preferredData;
+            }
+            table[preferred] = key ^ data;
+            table[preferred + 1] = data;
+        } else {
+            long alwaysData = table[always + 1];
+            if (alwaysData != MISS && (table[always] ^ alwaysData) != key)
+                collisions++;
+            table[always] = key ^ data;
+            table[always + 1] = data;
+        }
+    }
+
+    /**
+     * Age every entry, to be called before each new search
+     */
+    public final void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public final void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+        probes = hits = stores = collisions = 0L;
+    }
+
+    /*=========================================================================
+                       STATISTICS
+    =========================================================================*/
+
+    public final long getProbes() {
+        return probes;
+    }
+
+    public final long getHits() {
+        return hits;
+    }
+
+    public final long getStores() {
+        return stores;
+    }
+
+    /**
+     * @return number of stores which evicted another position
+     */
+    public final long getCollisions() {
+        return collisions;
+    }
+
+    /**
+     * @return number of entries
+     */
+    public final int capacity() {
+        return table.length / ENTRY_SIZE;
+    }
+
+    /**
+     * @return per mille of the first thousand entries used by current search
+     */
+    public final int hashFull() {
+        int used = 0;
+        int sample = Math.min(1000, capacity());
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * ENTRY_SIZE + 1];
+            if (data != MISS && generationOf(data) == generation)
+                used++;
+        }
+        return used * 1000 / sample;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Batch kernels against {@link MoveGenerator}, position by position
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class BatchMoveGeneratorTest {
+
+    //not a multiple of the block, so that the last block is partial
+    private static final int COUNT = 3 * BatchMoveGenerator.BLOCK + 17;
+
+    private long[] players;
+    private long[] rivals;
+    private long[] positions;
+
+    @Before
+    public void createPositions() {
+        players = new long[COUNT];
+        rivals = new long[COUNT];
+        randomPositions(players, rivals, new Random(3L));
+        positions = new long[2 * COUNT];
+        BatchMoveGenerator.pack(players, rivals, positions, COUNT);
+    }
+
+    @Test
+    public void legalMovesMatchScalarOnes() {
+        long[] moves = new long[COUNT];
+        long[] packedMoves = new long[COUNT];
+        BatchMoveGenerator.legalMoves(players, rivals, moves, COUNT);
+        BatchMoveGenerator.legalMoves(positions, packedMoves, COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            long expected = MoveGenerator.legalMoves(players[i], rivals[i]);
+            assertEquals("position " + i, expected, moves[i]);
+            assertEquals("packed position " + i, expected, packedMoves[i]);
+        }
+    }
+
+    @Test
+    public void mobilityMatchesScalarOne() {
+        int[] mobilities = new int[COUNT];
+        int[] packedMobilities = new int[COUNT];
+        BatchMoveGenerator.mobility(players, rivals, mobilities, COUNT);
+        BatchMoveGenerator.mobility(positions, packedMobilities, COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            int expected = Long.bitCount(MoveGenerator.legalMoves(players[i], rivals[i]));
+            assertEquals("position " + i, expected, mobilities[i]);
+            assertEquals("packed position " + i, expected, packedMobilities[i]);
+        }
+    }
+
+    @Test
+    public void flipsMatchScalarOnes() {
+        Random random = new Random(5L);
+        int[] squares = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            long moves = MoveGenerator.legalMoves(players[i], rivals[i]);
+            //illegal squares too, nothing is flipped there
+            squares[i] = moves == 0L || (i & 3) == 0
+                    ? random.nextInt(Squares.SQUARES_COUNT)
+                    : Long.numberOfTrailingZeros(Long.highestOneBit(moves));
+        }
+        long[] reversed = new long[COUNT];
+        long[] packedReversed = new long[COUNT];
+        BatchMoveGenerator.flips(players, rivals, squares, reversed, COUNT);
+        BatchMoveGenerator.flips(positions, squares, packedReversed, COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            long expected = MoveGenerator.flips(players[i], rivals[i], squares[i]);
+            assertEquals("position " + i, expected, reversed[i]);
+            assertEquals("packed position " + i, expected, packedReversed[i]);
+        }
+    }
+
+    @Test
+    public void entriesPastCountAreLeftUnchanged() {
+        long[] moves = new long[COUNT];
+        moves[COUNT - 1] = -1L;
+        BatchMoveGenerator.legalMoves(players, rivals, moves, COUNT - 1);
+        assertEquals(-1L, moves[COUNT - 1]);
+    }
+
+    /**
+     * Half of them reached by random games, half random disjoint bitboards
+     */
+    public static void randomPositions(long[] players, long[] rivals, Random random) {
+        for (int i = 0; i < players.length; i++) {
+            if ((i & 1) == 0) {
+                SearchPosition position = SearchPosition.initial();
+                for (int plies = random.nextInt(60); plies-- > 0; ) {
+                    long moves = position.legalMoves();
+                    if (moves == 0L) {
+                        if (position.rivalLegalMoves() == 0L)
+                            break;
+                        position.makePass();
+                        continue;
+                    }
+                    for (int skip = random.nextInt(Long.bitCount(moves)); skip-- > 0; )
+                        moves &= moves - 1;
+                    position.makeMove(Long.numberOfTrailingZeros(moves));
+                }
+                boolean black = position.getColorToMove() == OthelloProperties.BLACK;
+                players[i] = black ? position.getBlackPawns() : position.getWhitePawns();
+                rivals[i] = black ? position.getWhitePawns() : position.getBlackPawns();
+            } else {
+                long occupied = random.nextLong() | random.nextLong();
+                long player = occupied & random.nextLong();
+                players[i] = player;
+                rivals[i] = occupied & ~player;
+            }
+        }
+    }
+}
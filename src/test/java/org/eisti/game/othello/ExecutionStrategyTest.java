@@ -0,0 +1,130 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class ExecutionStrategyTest {
+
+    private static final int TASKS = 64;
+
+    @Test
+    public void specificationsAreParsed() {
+        assertEquals("sequential", close(ExecutionStrategy.of("sequential")).getName());
+        assertEquals("forkjoin:3", close(ExecutionStrategy.of("forkjoin:3")).getName());
+        assertEquals(3, close(ExecutionStrategy.of(" forkjoin:3 ")).getParallelism());
+        assertEquals("java.util.concurrent.ForkJoinPool",
+                close(ExecutionStrategy.of("java.util.concurrent.ForkJoinPool")).getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownClassIsRejected() {
+        ExecutionStrategy.of("org.eisti.game.othello.NoSuchExecutor");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void foreignClassIsRejected() {
+        ExecutionStrategy.of("java.lang.StringBuilder");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void executorWithoutDefaultConstructorIsRejected() {
+        ExecutionStrategy.of("java.util.concurrent.ThreadPoolExecutor");
+    }
+
+    @Test
+    public void resultsComeInTaskOrder() throws InterruptedException, ExecutionException {
+        for (String specification : new String[]{"sequential", "forkjoin:4"}) {
+            ExecutionStrategy strategy = ExecutionStrategy.of(specification);
+            try {
+                List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+                for (int i = 0; i < TASKS; i++) {
+                    final int task = i;
+                    tasks.add(new Callable<Integer>() {
+                        @Override
+                        public Integer call() {
+                            return task * task;
+                        }
+                    });
+                }
+                List<Integer> results = strategy.invokeAll(tasks);
+                assertEquals(TASKS, results.size());
+                for (int i = 0; i < TASKS; i++)
+                    assertEquals(i * i, results.get(i).intValue());
+            } finally {
+                strategy.close();
+            }
+        }
+    }
+
+    /**
+     * Tasks waiting for each other must run side by side, even once short tasks made batches run inline
+     */
+    @Test(timeout = 10000L)
+    public void parallelTasksNeverRunInline() throws InterruptedException, ExecutionException {
+        final int parallelism = 4;
+        ExecutionStrategy strategy = ExecutionStrategy.forkJoin(parallelism);
+        try {
+            List<Callable<Integer>> shortTasks = new ArrayList<Callable<Integer>>();
+            for (int i = 0; i < TASKS; i++)
+                shortTasks.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return 0;
+                    }
+                });
+            for (int i = 0; i < 10; i++)
+                strategy.invokeAll(shortTasks);
+
+            final CyclicBarrier barrier = new CyclicBarrier(parallelism);
+            List<Callable<Integer>> waitingTasks = new ArrayList<Callable<Integer>>();
+            for (int i = 0; i < parallelism; i++)
+                waitingTasks.add(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return barrier.await(5L, TimeUnit.SECONDS);
+                    }
+                });
+            assertEquals(parallelism, strategy.invokeAllParallel(waitingTasks).size());
+        } finally {
+            strategy.close();
+        }
+    }
+
+    private static ExecutionStrategy close(ExecutionStrategy strategy) {
+        strategy.close();
+        return strategy;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class PerftTest {
+
+    private static final int MAX_DEPTH = 8;
+    private static final int RULES_MAX_DEPTH = 7;
+
+    @Test
+    public void sequentialCountsMatchKnownOnes() {
+        assertCounts(new Perft(1, 0));
+    }
+
+    @Test
+    public void hashedParallelCountsMatchKnownOnes() {
+        assertCounts(new Perft(4, 1));
+    }
+
+    @Test
+    public void divideSumsToCount() {
+        Perft perft = new Perft(1, 1);
+        long total = 0L;
+        for (long count : perft.divide(SearchPosition.initial(), 6))
+            total += count;
+        assertEquals(Perft.INITIAL_COUNTS[6], total);
+    }
+
+    @Test
+    public void passIsCounted() {
+        //white to move has no disc to flip, black can play
+        SearchPosition position = Perft.parse(
+                "XXXXXXXX XXXXXXXX XXXXXXXX XXXXXXXX XXXXXXXX XXXXXXXX XXXXXXXO XXXXXX-- O");
+        Perft perft = new Perft(1, 0);
+        assertEquals(1L, perft.count(position, 1));
+    }
+
+    /**
+     * Same counts through Rules and contexts, a pass played by doPly included
+     */
+    @Test
+    public void rulesCountsMatchKnownOnes() {
+        OthelloContext root = Perft.context(SearchPosition.initial());
+        for (int depth = 0; depth <= RULES_MAX_DEPTH; depth++)
+            assertEquals("depth " + depth, Perft.INITIAL_COUNTS[depth], Perft.countRules(root, depth));
+    }
+
+    @Test
+    public void rulesCountsMatchPositionCounts() {
+        Perft perft = new Perft(1, 0);
+        //midgame positions with passes below them
+        for (String position : new String[]{
+                "XXXXXXXX XXXXXXXX XXXXXXXX XXXXXXXX XXXXXXXX XXXXXXXX XXXXXXXO XXXXXX-- O",
+                "--XXXXX- O-XXXX-- OOXXOXXX OXOOXXXX OXXXOXXX OXXOXXXX --XXXXXX -XXXXXX- X",
+                "-OOOOO-- X-OOOO-- XXOXOO-- XOXOOOO- XXOOOXXO XOOOOO-O X-OOOO-- -OOOOO-- O"}) {
+            SearchPosition root = Perft.parse(position);
+            for (int depth = 1; depth <= 5; depth++)
+                assertEquals(position + " depth " + depth,
+                        perft.count(root, depth), Perft.countRules(Perft.context(root), depth));
+        }
+        long[] divided = Perft.divideRules(Perft.context(SearchPosition.initial()), 5);
+        long total = 0L;
+        for (long count : divided)
+            total += count;
+        assertEquals(Perft.INITIAL_COUNTS[5], total);
+    }
+
+    private static void assertCounts(Perft perft) {
+        try {
+            SearchPosition root = SearchPosition.initial();
+            for (int depth = 0; depth <= MAX_DEPTH; depth++)
+                assertEquals("depth " + depth, Perft.INITIAL_COUNTS[depth], perft.count(root, depth));
+        } finally {
+            perft.shutdown();
+        }
+    }
+}
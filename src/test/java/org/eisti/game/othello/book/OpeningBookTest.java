@@ -0,0 +1,147 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.book;
+
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.search.SearchResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class OpeningBookTest {
+
+    private static final String GAMES =
+            "# two games through d6, one through f6\n"
+                    + "f5d6c3d3c4\n"
+                    + "f5d6c3d3c4\n"
+                    + "f5f6e6f4\n";
+    private static final int PLIES = 4;
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("book", ".bin");
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void mostPlayedMoveIsReturned() throws IOException {
+        OpeningBook book = build(1);
+        SearchResult result = book.probe(play("f5"));
+        assertNotNull(result);
+        assertEquals(square("d6"), result.getBestMove());
+    }
+
+    @Test
+    public void symmetricPositionSharesRecords() throws IOException {
+        OpeningBook book = build(1);
+        //e6 is f5 mirrored on the A1-H8 diagonal, so is f4 for d6
+        SearchResult result = book.probe(play("e6"));
+        assertNotNull(result);
+        assertEquals(square("f4"), result.getBestMove());
+    }
+
+    @Test
+    public void startPositionMoveIsLegal() throws IOException {
+        OpeningBook book = build(1);
+        SearchPosition initial = SearchPosition.initial();
+        SearchResult result = book.probe(initial);
+        assertNotNull(result);
+        assertTrue((initial.legalMoves() & 1L << result.getBestMove()) != 0L);
+    }
+
+    @Test
+    public void unknownPositionIsMissed() throws IOException {
+        OpeningBook book = build(1);
+        assertNull(book.probe(play("f5f4")));
+    }
+
+    @Test
+    public void positionPastRecordedPliesIsMissed() throws IOException {
+        OpeningBook book = build(1);
+        SearchPosition position = play("f5d6c3d3");
+        assertTrue(!book.covers(position));
+        assertNull(book.probe(position));
+    }
+
+    @Test
+    public void rareMovesAreLeftOut() throws IOException {
+        OpeningBook book = build(2);
+        assertNotNull(book.probe(play("f5d6")));
+        assertNull(book.probe(play("f5f6")));
+    }
+
+    @Test
+    public void recordsAreSortedByKey() throws IOException {
+        OpeningBook book = build(1);
+        assertEquals(PLIES, book.getPlies());
+        for (int i = 1; i < book.size(); i++)
+            assertTrue(book.getKey(i - 1) <= book.getKey(i));
+        for (int i = 0; i < book.size(); i++) {
+            int first = book.find(book.getKey(i));
+            assertTrue(first >= 0 && first <= i);
+            assertTrue(first == 0 || book.getKey(first - 1) != book.getKey(i));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void foreignFileIsRejected() throws IOException {
+        OpeningBook.open(file);
+    }
+
+    private OpeningBook build(int minGames) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(PLIES);
+        builder.addGames(new StringReader(GAMES));
+        assertEquals(3, builder.getGames());
+        builder.write(file, minGames);
+        return OpeningBook.open(file);
+    }
+
+    private static SearchPosition play(String transcript) {
+        SearchPosition position = SearchPosition.initial();
+        for (int move : OpeningBookBuilder.parse(transcript))
+            position.makeMove(move);
+        return position;
+    }
+
+    private static int square(String coordinate) {
+        return OpeningBookBuilder.parse(coordinate)[0];
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.match;
+
+import org.eisti.game.othello.ExecutionStrategy;
+import org.eisti.game.othello.OthelloContext;
+import org.eisti.game.othello.OthelloProperties;
+import org.eisti.game.othello.SearchPosition;
+import org.eisti.game.othello.Squares;
+import org.eisti.labs.game.Clock;
+import org.eisti.labs.game.IBoard;
+import org.eisti.labs.game.IPlayer;
+import org.eisti.labs.game.Ply;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class MatchSchedulerTest
+        implements OthelloProperties {
+
+    private static final int GAMES = 200;
+    private static final int ACTIVE_GAMES = 16;
+
+    /**
+     * Games handed from thread to thread must end as if each was played alone
+     */
+    @Test(timeout = 60000L)
+    public void concurrentGamesMatchSequentialOnes() throws InterruptedException {
+        List<Match> sequential = playAll(ExecutionStrategy.sequential());
+        List<Match> concurrent = playAll(ExecutionStrategy.forkJoin(4));
+        for (int i = 0; i < GAMES; i++) {
+            assertTrue(concurrent.get(i).isOver());
+            assertEquals("game " + i, sequential.get(i).getPlies(), concurrent.get(i).getPlies());
+            assertEquals("game " + i, sequential.get(i).getDiscDifference(), concurrent.get(i).getDiscDifference());
+            assertEquals("game " + i, sequential.get(i).getContext().getBoard(), concurrent.get(i).getContext().getBoard());
+        }
+    }
+
+    @Test(timeout = 60000L)
+    public void reportCountsEveryPly() throws InterruptedException {
+        ExecutionStrategy strategy = ExecutionStrategy.forkJoin(4);
+        try {
+            MatchScheduler scheduler = new MatchScheduler(strategy, ACTIVE_GAMES);
+            List<Match> matches = schedule(scheduler);
+            MatchScheduler.Report report = scheduler.run();
+            long plies = 0L;
+            for (Match match : matches)
+                plies += match.getPlies();
+            assertEquals(GAMES, report.getGames());
+            assertEquals(plies, report.getPlies());
+        } finally {
+            strategy.close();
+        }
+    }
+
+    /**
+     * A failing player ends the run instead of leaving other workers waiting
+     */
+    @Test(timeout = 60000L, expected = Error.class)
+    public void failureStopsEveryWorker() throws InterruptedException {
+        final AtomicInteger plies = new AtomicInteger();
+        MatchPlayer failing = new MatchPlayer() {
+            @Override
+            public Ply play(OthelloContext context) {
+                if (plies.incrementAndGet() == GAMES)
+                    throw new IllegalStateException("Player failure");
+                return firstMove(context);
+            }
+        };
+        ExecutionStrategy strategy = ExecutionStrategy.forkJoin(4);
+        try {
+            MatchScheduler scheduler = new MatchScheduler(strategy, ACTIVE_GAMES);
+            for (int i = 0; i < GAMES; i++)
+                scheduler.schedule(new Match(start(), failing, failing));
+            scheduler.run();
+        } finally {
+            strategy.close();
+        }
+    }
+
+    private static List<Match> playAll(ExecutionStrategy strategy) throws InterruptedException {
+        try {
+            MatchScheduler scheduler = new MatchScheduler(strategy, ACTIVE_GAMES);
+            List<Match> matches = schedule(scheduler);
+            scheduler.run();
+            return matches;
+        } finally {
+            strategy.close();
+        }
+    }
+
+    private static List<Match> schedule(MatchScheduler scheduler) {
+        List<Match> matches = new ArrayList<Match>(GAMES);
+        for (int i = 0; i < GAMES; i++) {
+            MatchPlayer player = seeded(i);
+            Match match = new Match(start(), player, player);
+            matches.add(match);
+            scheduler.schedule(match);
+        }
+        return matches;
+    }
+
+    //move chosen by the position and the seed only, so that each game is the same on any thread
+    private static MatchPlayer seeded(final long seed) {
+        return new MatchPlayer() {
+            @Override
+            public Ply play(OthelloContext context) {
+                long moves = context.getLegalMoveMask();
+                long hash = (context.getPositionKey() ^ seed) * 0x9E3779B97F4A7C15L;
+                for (int skip = (int) ((hash >>> 33) % Long.bitCount(moves)); skip-- > 0; )
+                    moves &= moves - 1;
+                return Squares.ply(Long.numberOfTrailingZeros(moves));
+            }
+        };
+    }
+
+    private static Ply firstMove(OthelloContext context) {
+        return Squares.ply(Long.numberOfTrailingZeros(context.getLegalMoveMask()));
+    }
+
+    private static OthelloContext start() {
+        return new OthelloContext(
+                mock(Clock.class),
+                new IBoard[]{SearchPosition.initial().toBoard()},
+                new IPlayer[]{player(BLACK), player(WHITE)},
+                new Clock[]{mock(Clock.class), mock(Clock.class)});
+    }
+
+    private static IPlayer player(int color) {
+        IPlayer player = mock(IPlayer.class);
+        when(player.getIdentifier()).thenReturn(color);
+        return player;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.match;
+
+import org.eisti.game.othello.ExecutionStrategy;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class TournamentTest {
+
+    private static final int GAMES = 64;
+
+    /**
+     * Engines limited by nodes play the same games whatever the thread and what it played before
+     */
+    @Test(timeout = 120000L)
+    public void resultsDoNotDependOnThreads() throws IOException, InterruptedException {
+        String sequential = play(ExecutionStrategy.sequential());
+        String concurrent = play(ExecutionStrategy.forkJoin(4));
+        assertEquals(GAMES + 1, sequential.split("\n").length);
+        assertEquals(sortedLines(sequential), sortedLines(concurrent));
+    }
+
+    @Test
+    public void commentedTranscriptsAreRead() throws IOException {
+        List<int[]> openings = Tournament.readOpenings(new StringReader(
+                "# games of the book\n"
+                        + "f5d6c3d3c4\n"
+                        + "\n"
+                        + "  # transposed\n"
+                        + "f5f6e6f4\n"
+                        + "f5d6c3d3c4f4\n"), 4);
+        assertEquals(2, openings.size());
+        assertEquals(4, openings.get(0).length);
+    }
+
+    @Test
+    public void invalidTranscriptGivesItsLine() {
+        try {
+            Tournament.readOpenings(new StringReader("# header\nf5d6\nf5f5\n"), 2);
+            fail("Read an illegal opening");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 3 : "));
+        }
+    }
+
+    private static String play(ExecutionStrategy strategy) throws IOException, InterruptedException {
+        List<EngineConfiguration> engines = Arrays.asList(
+                EngineConfiguration.parse("a:depth=5,nodes=3000,endgame=8,table=1"),
+                EngineConfiguration.parse("b:depth=4,eval=heuristic,nodes=2000,endgame=8,table=1"));
+        Tournament tournament = new Tournament(engines, Tournament.randomOpenings(16, 6, new Random(3L)), GAMES);
+        StringWriter out = new StringWriter();
+        try {
+            tournament.run(strategy, out);
+        } finally {
+            strategy.close();
+        }
+        return out.toString();
+    }
+
+    //lines come in the order games end
+    private static List<String> sortedLines(String csv) {
+        List<String> lines = Arrays.asList(csv.split("\n"));
+        Collections.sort(lines);
+        return lines;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.BatchMoveGenerator;
+import org.eisti.game.othello.BatchMoveGeneratorTest;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Batch evaluation against {@link Evaluator#evaluate(long, long)}, position by position
+ *
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class BatchEvaluatorTest {
+
+    private static final int COUNT = 3 * BatchMoveGenerator.BLOCK + 17;
+
+    @Test
+    public void heuristicBatchMatchesScalar() {
+        assertSameScores(new HeuristicEvaluator());
+    }
+
+    @Test
+    public void patternBatchMatchesScalar() {
+        assertSameScores(new PatternEvaluator());
+    }
+
+    private static void assertSameScores(Evaluator evaluator) {
+        long[] players = new long[COUNT];
+        long[] rivals = new long[COUNT];
+        BatchMoveGeneratorTest.randomPositions(players, rivals, new Random(7L));
+        long[] positions = new long[2 * COUNT];
+        BatchMoveGenerator.pack(players, rivals, positions, COUNT);
+
+        int[] scores = new int[COUNT];
+        int[] packedScores = new int[COUNT];
+        BatchEvaluator.evaluate(evaluator, players, rivals, scores, COUNT);
+        BatchEvaluator.evaluate(evaluator, positions, packedScores, COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            int expected = evaluator.evaluate(players[i], rivals[i]);
+            assertEquals("position " + i, expected, scores[i]);
+            assertEquals("packed position " + i, expected, packedScores[i]);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.SearchPosition;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class MonteCarloSearchTest {
+
+    //few enough for an exact solve, several moves to choose from
+    private static final int EMPTIES = 8;
+
+    private MonteCarloSearch search;
+
+    @After
+    public void shutdown() {
+        if (search != null)
+            search.shutdown();
+    }
+
+    @Test
+    public void noTimeStillGivesLegalMove() {
+        search = new MonteCarloSearch(2, MonteCarloSearch.DEFAULT_CAPACITY);
+        search.setTimeLimit(0L);
+        assertLegal(SearchPosition.initial(), search.search(SearchPosition.initial()));
+    }
+
+    @Test
+    public void noPlayoutStillGivesLegalMove() {
+        search = new MonteCarloSearch(1, MonteCarloSearch.DEFAULT_CAPACITY);
+        search.setPlayoutLimit(0L);
+        SearchPosition position = SearchEngineTest.randomPosition(40, new Random(5L));
+        SearchResult result = search.search(position);
+        assertLegal(position, result);
+        assertEquals(0L, result.getNodes());
+    }
+
+    @Test
+    public void smallestTreeGivesLegalMoves() {
+        search = new MonteCarloSearch(1, MonteCarloSearch.MIN_CAPACITY);
+        search.setPlayoutLimit(1000L);
+        Random random = new Random(9L);
+        for (int i = 0; i < 20; i++) {
+            SearchPosition position = SearchEngineTest.randomPosition(30 + i, random);
+            assertLegal(position, search.search(position));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void treeWithoutRoomForRootMovesIsRejected() {
+        new MonteCarloSearch(1, MonteCarloSearch.MIN_CAPACITY - 1);
+    }
+
+    /**
+     * A stop coming before the search, as from another thread, is not lost
+     */
+    @Test(timeout = 10000L)
+    public void stopBeforeSearchAbortsIt() {
+        search = new MonteCarloSearch(2, MonteCarloSearch.DEFAULT_CAPACITY);
+        search.stop();
+        SearchResult result = search.search(SearchPosition.initial());
+        assertLegal(SearchPosition.initial(), result);
+        assertEquals(0L, result.getNodes());
+
+        //request served, next search runs to its limit
+        search.setPlayoutLimit(500L);
+        assertEquals(500L, search.search(SearchPosition.initial()).getNodes());
+    }
+
+    /**
+     * Subtree of a position two plies down the previous root is kept as the new tree
+     */
+    @Test
+    public void treeIsReusedTwoPliesDown() {
+        search = new MonteCarloSearch(1, MonteCarloSearch.DEFAULT_CAPACITY);
+        search.setPlayoutLimit(20000L);
+        SearchPosition root = SearchPosition.initial();
+        SearchResult first = search.search(root);
+        int searchedTree = search.getTreeSize();
+
+        SearchPosition grandchild = root.copy();
+        grandchild.makeMove(first.getBestMove());
+        grandchild.makeMove(Long.numberOfTrailingZeros(grandchild.legalMoves()));
+        int rootMoves = Long.bitCount(grandchild.legalMoves());
+
+        //no playout : tree is only what was kept, plus root moves if root was a leaf
+        search.setPlayoutLimit(0L);
+        search.search(grandchild);
+        int keptTree = search.getTreeSize();
+        assertTrue("Subtree not kept : " + keptTree, keptTree > 1 + rootMoves);
+        assertTrue(keptTree < searchedTree);
+
+        search.clear();
+        search.search(grandchild);
+        assertEquals(1 + rootMoves, search.getTreeSize());
+    }
+
+    /**
+     * Threads sharing the tree through virtual loss still find the only winning move
+     */
+    @Test(timeout = 60000L)
+    public void parallelSearchFindsWinningMove() {
+        search = new MonteCarloSearch(4, MonteCarloSearch.DEFAULT_CAPACITY);
+        search.setPlayoutLimit(40000L);
+        Random random = new Random(13L);
+        int found = 0;
+        while (found < 5) {
+            SearchPosition position = SearchEngineTest.randomPosition(EMPTIES, random);
+            int winning = onlyWinningMove(position);
+            if (winning < 0)
+                continue;
+            found++;
+            search.clear();
+            SearchResult result = search.search(position);
+            assertEquals("Winning move missed in " + position, winning, result.getBestMove());
+            assertTrue(result.getScore() > 0);
+        }
+    }
+
+    /**
+     * @return the only move winning the game, -1 if none or several
+     */
+    private static int onlyWinningMove(SearchPosition position) {
+        int winning = -1;
+        for (long moves = position.legalMoves(); moves != 0L; moves &= moves - 1) {
+            int move = Long.numberOfTrailingZeros(moves);
+            long undo = position.makeMove(move);
+            //rival's best outcome
+            int outcome = solve(position);
+            position.unmakeMove(move, undo);
+            if (outcome < 0) {
+                if (winning >= 0)
+                    return -1;
+                winning = move;
+            } else if (outcome == 0) {
+                //a draw is not a forced choice
+                return -1;
+            }
+        }
+        return winning;
+    }
+
+    /**
+     * @return sign of the final disc difference for the side to move, perfect play
+     */
+    private static int solve(SearchPosition position) {
+        long moves = position.legalMoves();
+        if (moves == 0L) {
+            if (position.rivalLegalMoves() == 0L)
+                return Integer.signum(Long.bitCount(position.getPlayerPawns()) - Long.bitCount(position.getRivalPawns()));
+            position.makePass();
+            int outcome = -solve(position);
+            position.unmakePass();
+            return outcome;
+        }
+        int best = -1;
+        for (; moves != 0L && best < 1; moves &= moves - 1) {
+            int move = Long.numberOfTrailingZeros(moves);
+            long undo = position.makeMove(move);
+            best = Math.max(best, -solve(position));
+            position.unmakeMove(move, undo);
+        }
+        return best;
+    }
+
+    private static void assertLegal(SearchPosition position, SearchResult result) {
+        assertTrue("Illegal move " + result.getBestMove(),
+                (position.legalMoves() & (1L << result.getBestMove())) != 0L);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.eisti.game.othello.search.TranspositionTable.EXACT;
+import static org.eisti.game.othello.search.TranspositionTable.MISS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class PositionStoreTest {
+
+    private static final int POSITIONS = 100;
+
+    private File path;
+
+    @Before
+    public void createPath() throws IOException {
+        path = File.createTempFile("positions", ".log");
+        assertTrue(path.delete());
+    }
+
+    @After
+    public void deleteFiles() {
+        for (String suffix : new String[]{"", ".index", ".lock", ".tmp"})
+            new File(path.getPath() + suffix).delete();
+    }
+
+    @Test
+    public void reopenKeepsPositions() throws IOException {
+        fill();
+        PositionStore store = PositionStore.open(path, 1000);
+        try {
+            assertStored(store);
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void dirtyIndexIsRebuiltFromLog() throws IOException {
+        fill();
+        //as left by a crash : flag says dirty, slots are lost
+        RandomAccessFile index = new RandomAccessFile(path.getPath() + ".index", "rw");
+        try {
+            index.seek(12);
+            index.writeInt(0);
+            index.seek(PositionStore.INDEX_HEADER_SIZE);
+            index.write(new byte[64 * PositionStore.SLOT_SIZE]);
+        } finally {
+            index.close();
+        }
+
+        PositionStore store = PositionStore.open(path, 1000);
+        try {
+            assertStored(store);
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void tornRecordIsTruncated() throws IOException {
+        fill();
+        long length = path.length();
+        RandomAccessFile log = new RandomAccessFile(path, "rw");
+        try {
+            log.seek(length);
+            log.write(new byte[PositionStore.RECORD_SIZE / 2 + 3]);
+        } finally {
+            log.close();
+        }
+
+        PositionStore store = PositionStore.open(path, 1000);
+        try {
+            assertStored(store);
+            assertEquals(length, path.length());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void failedOpenReleasesLock() throws IOException {
+        RandomAccessFile log = new RandomAccessFile(path, "rw");
+        try {
+            log.writeLong(0x1234567812345678L);
+        } finally {
+            log.close();
+        }
+        try {
+            PositionStore.open(path, 1000).close();
+            fail("Opened a store from a foreign file");
+        } catch (IOException expected) {
+            //not a position store
+        }
+
+        assertTrue(path.delete());
+        //would fail as already in use if the lock of the failed open was kept
+        fill();
+    }
+
+    @Test
+    public void compactionKeepsLivePositions() throws IOException {
+        PositionStore store = PositionStore.open(path, POSITIONS);
+        try {
+            //each pass deepens every position, log outgrows twice the live positions
+            for (int depth = 1; depth <= 4; depth++)
+                for (int i = 0; i < POSITIONS; i++)
+                    assertTrue(store.store(key(i), depth, EXACT, i, i % 64));
+            assertEquals(POSITIONS, store.size());
+        } finally {
+            store.close();
+        }
+        assertTrue(path.length() <= PositionStore.LOG_HEADER_SIZE + 2L * POSITIONS * PositionStore.RECORD_SIZE);
+
+        store = PositionStore.open(path, POSITIONS);
+        try {
+            for (int i = 0; i < POSITIONS; i++)
+                assertEquals(4, TranspositionTable.depthOf(store.probe(key(i))));
+        } finally {
+            store.close();
+        }
+    }
+
+    private void fill() throws IOException {
+        PositionStore store = PositionStore.open(path, 1000);
+        try {
+            for (int i = 0; i < POSITIONS; i++)
+                assertTrue(store.store(key(i), 10, EXACT, i - POSITIONS / 2, i % 64));
+        } finally {
+            store.close();
+        }
+    }
+
+    private static void assertStored(PositionStore store) {
+        assertEquals(POSITIONS, store.size());
+        for (int i = 0; i < POSITIONS; i++) {
+            long data = store.probe(key(i));
+            assertTrue(data != MISS);
+            assertEquals(i - POSITIONS / 2, TranspositionTable.scoreOf(data));
+            assertEquals(i % 64, TranspositionTable.moveOf(data));
+        }
+        assertEquals(MISS, store.probe(key(POSITIONS)));
+    }
+
+    private static long key(int i) {
+        return (i + 1) * 0x9E3779B97F4A7C15L;
+    }
+}
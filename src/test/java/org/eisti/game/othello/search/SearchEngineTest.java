@@ -0,0 +1,108 @@
+/*
+ * #%L
+ * Othello Game Project
+ * %%
+ * Copyright (C) 2011 MACHIZAUD Andréa
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * #L%
+ */
+package org.eisti.game.othello.search;
+
+import org.eisti.game.othello.SearchPosition;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static java.lang.Long.bitCount;
+import static java.lang.Long.numberOfTrailingZeros;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author MACHIZAUD Andréa
+ * @version 10/18/26
+ */
+public class SearchEngineTest {
+
+    private static final int EMPTIES = 24;
+
+    /**
+     * A stop coming between prepare and run, as for a late parallel search helper,
+     * must also stop the endgame solver instead of letting it solve without limit
+     */
+    @Test(timeout = 10000L)
+    public void stopBeforeRunReachesSolver() {
+        SearchPosition position = randomPosition(EMPTIES, new Random(7L));
+        SearchEngine engine = new SearchEngine(4);
+        engine.setEndgameEmpties(EMPTIES);
+
+        engine.prepare();
+        engine.stop();
+        SearchResult result = engine.run(position);
+
+        assertTrue("Illegal move " + result.getBestMove(),
+                (position.legalMoves() & (1L << result.getBestMove())) != 0L);
+    }
+
+    /**
+     * A reset engine searches as a new one : same move, score and node count
+     */
+    @Test
+    public void resetForgetsPreviousSearches() {
+        Random random = new Random(11L);
+        SearchEngine used = new SearchEngine(1);
+        used.setMaxDepth(6);
+        used.setEndgameEmpties(0);
+        for (int i = 0; i < 8; i++)
+            used.search(randomPosition(40, random));
+
+        SearchPosition position = randomPosition(36, random);
+        used.reset();
+        SearchResult again = used.search(position);
+
+        SearchEngine fresh = new SearchEngine(1);
+        fresh.setMaxDepth(6);
+        fresh.setEndgameEmpties(0);
+        SearchResult first = fresh.search(position);
+
+        assertEquals(first.getBestMove(), again.getBestMove());
+        assertEquals(first.getScore(), again.getScore());
+        assertEquals(first.getNodes(), again.getNodes());
+    }
+
+    /**
+     * @return position with given number of empties reached by random moves, side to move can play
+     */
+    static SearchPosition randomPosition(int empties, Random random) {
+        while (true) {
+            SearchPosition position = SearchPosition.initial();
+            while (bitCount(position.getEmptySquares()) > empties) {
+                long moves = position.legalMoves();
+                if (moves == 0L) {
+                    position.makePass();
+                    moves = position.legalMoves();
+                    if (moves == 0L)
+                        break;
+                }
+                for (int skip = random.nextInt(bitCount(moves)); skip-- > 0; )
+                    moves &= moves - 1;
+                position.makeMove(numberOfTrailingZeros(moves));
+            }
+            if (bitCount(position.getEmptySquares()) == empties && bitCount(position.legalMoves()) > 1)
+                return position;
+        }
+    }
+}